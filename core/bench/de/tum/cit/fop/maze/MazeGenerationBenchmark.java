@@ -0,0 +1,151 @@
+package de.tum.cit.fop.maze;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares the maze generators and measures how parallel maze generation scales with the number of threads. Every
+ * generator carves the same size of maze several times and reports its best speed in cells per second, its peak
+ * working memory and the share of dead ends, which shows how much its corridors branch. Then, for every thread count
+ * from 1 up to the given maximum, the same seeded maze is carved and fully generated several times and the best
+ * times are reported together with the speedup over a single thread. Every parallel run is also compared with the
+ * single-threaded result, to make sure the generated maze does not depend on the number of threads.
+ * Usage: gradlew core:benchGeneration --args="[size] [max threads] [runs]"
+ */
+public final class MazeGenerationBenchmark {
+    private static final long SEED = 42;
+    private static final MazeGenerator[] GENERATORS = {
+            new DepthFirstGenerator(), new KruskalGenerator(), new WilsonGenerator(), new PrimGenerator()
+    };
+
+    /**
+     * The measured performance of a maze generator.
+     * @param cellsPerSecond The number of cells carved per second in the fastest run.
+     * @param peakBytes The memory allocated by the generator while carving, or -1 if the JVM cannot measure it.
+     *                  Generators allocate their working arrays once, so this is their peak working memory.
+     * @param deadEnds The share of cells that are dead ends, from 0 to 1.
+     */
+    public record Report(double cellsPerSecond, long peakBytes, double deadEnds) {
+    }
+
+    private MazeGenerationBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints one line per generator and per thread count.
+     * @param args The size of the maze, the maximum number of threads and the number of measured runs, all optional.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 2049;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        System.out.println("Maze of " + size + "x" + size + " tiles, best of " + runs + " runs");
+        for (MazeGenerator generator : GENERATORS) {
+            Report report = measure(generator, size, runs);
+            System.out.printf("%-12s %12.0f cells/s, peak %8.2f MiB, %5.1f%% dead ends%n", generator.getName(),
+                    report.cellsPerSecond(), report.peakBytes() / (1024.0 * 1024.0), report.deadEnds() * 100);
+        }
+
+        int[][] reference = null;
+        long baseCarve = 0;
+        long baseTotal = 0;
+        MazeGenerator generator = GENERATORS[0];
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                // warm up
+                Maze.generateMazeParallel(size, size, 1, SEED, pool, generator);
+
+                long carve = Long.MAX_VALUE;
+                long total = Long.MAX_VALUE;
+                for (int i = 0; i < runs; i++) {
+                    int[][] maze = new int[size][size];
+                    long start = System.nanoTime();
+                    Maze.carveParallel(maze, SEED, pool, generator);
+                    carve = Math.min(carve, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    maze = Maze.generateMazeParallel(size, size, 1, SEED, pool, generator);
+                    total = Math.min(total, System.nanoTime() - start);
+
+                    if (reference == null) {
+                        reference = maze;
+                    } else if (!Arrays.deepEquals(reference, maze)) {
+                        System.out.println("Maze generated with " + threads + " threads differs from the reference");
+                        return;
+                    }
+                }
+                if (threads == 1) {
+                    baseCarve = carve;
+                    baseTotal = total;
+                }
+                System.out.printf("%2d threads: carve %8.2f ms (%5.2fx), total %8.2f ms (%5.2fx)%n", threads,
+                        carve / 1e6, (double) baseCarve / carve, total / 1e6, (double) baseTotal / total);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Measures a generator by carving whole mazes on the current thread.
+     * @param generator The generator to measure.
+     * @param size The width and height of the mazes in tiles.
+     * @param runs The number of measured runs, after one warm-up run.
+     * @return The measured performance.
+     */
+    public static Report measure(MazeGenerator generator, int size, int runs) {
+        long cells = (long) (size / 2) * (size / 2);
+        long best = Long.MAX_VALUE;
+        long peakBytes = -1;
+        int[][] maze = null;
+        for (int i = 0; i <= runs; i++) {
+            maze = new int[size][size];
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            generator.carve(maze, new Random(SEED + i));
+            long time = System.nanoTime() - start;
+            if (i > 0) {
+                best = Math.min(best, time);
+                if (allocated >= 0) {
+                    peakBytes = Math.max(peakBytes, allocatedBytes() - allocated);
+                }
+            }
+        }
+        return new Report(cells * 1e9 / best, peakBytes, (double) countDeadEnds(maze) / cells);
+    }
+
+    /**
+     * Returns the number of bytes the current thread has allocated so far.
+     * @return The number of bytes, or -1 if the JVM does not track allocations per thread.
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemoryEnabled()) {
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the cells of a carved maze that have exactly one open side.
+     * @param maze The carved maze, with cells at all odd positions.
+     * @return The number of dead ends.
+     */
+    private static long countDeadEnds(int[][] maze) {
+        long deadEnds = 0;
+        for (int y = 1; y < maze.length - 1; y += 2) {
+            for (int x = 1; x < maze[y].length - 1; x += 2) {
+                int open = (maze[y][x - 1] == MazeGenerator.PATH ? 1 : 0) + (maze[y][x + 1] == MazeGenerator.PATH ? 1 : 0)
+                        + (maze[y - 1][x] == MazeGenerator.PATH ? 1 : 0) + (maze[y + 1][x] == MazeGenerator.PATH ? 1 : 0);
+                if (open == 1) {
+                    deadEnds++;
+                }
+            }
+        }
+        return deadEnds;
+    }
+}
@@ -0,0 +1,180 @@
+package de.tum.cit.fop.maze;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Compares the bitset flood fill of {@link Reachability} with breadth-first searches visiting one tile at a time:
+ * one on boxed tiles with a hash set, like enemies used to search for the player, and one on primitive arrays. Every
+ * search finds the component of the entrance of the same seeded maze several times, and the best times are reported.
+ * The bitset fill also answers whether the exit can be reached from the entrance. All searches must find the same
+ * number of tiles.
+ * Usage: gradlew core:benchReachability --args="[size] [runs]"
+ */
+public final class ReachabilityBenchmark {
+    private static final long SEED = 42;
+
+    private ReachabilityBenchmark() {
+    }
+
+    /**
+     * Runs the benchmark and prints one line per search.
+     * @param args The size of the maze and the number of measured runs, both optional.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1001;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int[][] maze = Maze.generateMaze(size, size, 1, SEED);
+        long entrance = find(maze, 4);
+        long exit = find(maze, 12);
+        int x = TileCoord.x(entrance);
+        int y = TileCoord.y(entrance);
+        Reachability reachability = Reachability.of(maze);
+
+        System.out.println("Maze of " + size + "x" + size + " tiles, best of " + runs + " runs");
+        long bitset = Long.MAX_VALUE;
+        long bitsetTarget = Long.MAX_VALUE;
+        long boxed = Long.MAX_VALUE;
+        long primitive = Long.MAX_VALUE;
+        int bitsetCount = 0;
+        int boxedCount = 0;
+        int primitiveCount = 0;
+        boolean exitReached = false;
+        for (int i = 0; i <= runs; i++) {
+            long start = System.nanoTime();
+            TileMask component = reachability.component(x, y);
+            long time = System.nanoTime() - start;
+            bitsetCount = count(component);
+
+            start = System.nanoTime();
+            exitReached = reachability.isReachable(x, y, TileCoord.x(exit), TileCoord.y(exit));
+            long targetTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            boxedCount = boxedSearch(maze, x, y);
+            long boxedTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            primitiveCount = primitiveSearch(maze, x, y);
+            long primitiveTime = System.nanoTime() - start;
+
+            // the first run warms up
+            if (i > 0) {
+                bitset = Math.min(bitset, time);
+                bitsetTarget = Math.min(bitsetTarget, targetTime);
+                boxed = Math.min(boxed, boxedTime);
+                primitive = Math.min(primitive, primitiveTime);
+            }
+        }
+
+        System.out.printf("bitset fill      %8.3f ms, %d tiles%n", bitset / 1e6, bitsetCount);
+        System.out.printf("bitset to exit   %8.3f ms, exit %s%n", bitsetTarget / 1e6,
+                exitReached ? "reachable" : "not reachable");
+        System.out.printf("boxed search     %8.3f ms, %d tiles (%5.1fx)%n", boxed / 1e6, boxedCount,
+                (double) boxed / bitset);
+        System.out.printf("primitive search %8.3f ms, %d tiles (%5.1fx)%n", primitive / 1e6, primitiveCount,
+                (double) primitive / bitset);
+        if (bitsetCount != boxedCount || bitsetCount != primitiveCount) {
+            System.out.println("The searches found different components");
+        }
+    }
+
+    /**
+     * Finds the first tile of a given type.
+     * @param maze The maze to search.
+     * @param type The tile type to look for.
+     * @return The packed position of the tile.
+     */
+    private static long find(int[][] maze, int type) {
+        for (int y = 0; y < maze.length; y++) {
+            for (int x = 0; x < maze[y].length; x++) {
+                if (maze[y][x] == type) {
+                    return TileCoord.of(x, y);
+                }
+            }
+        }
+        throw new IllegalStateException("No tile of type " + type);
+    }
+
+    /**
+     * Counts the set bits of a mask.
+     * @param mask The mask.
+     * @return The number of set bits.
+     */
+    private static int count(TileMask mask) {
+        int count = 0;
+        for (int y = 0; y < mask.getHeight(); y++) {
+            for (int i = 0; i < mask.getWordsPerRow(); i++) {
+                count += Long.bitCount(mask.getWord(y, i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Searches the component of a tile with a queue of boxed packed tiles and a hash set of visited tiles.
+     * @param maze The maze to search.
+     * @param x The x position of the tile to start from.
+     * @param y The y position of the tile to start from.
+     * @return The number of tiles in the component.
+     */
+    private static int boxedSearch(int[][] maze, int x, int y) {
+        Queue<Long> queue = new ArrayDeque<>();
+        Set<Long> visited = new HashSet<>();
+        queue.add(TileCoord.of(x, y));
+        visited.add(TileCoord.of(x, y));
+        while (!queue.isEmpty()) {
+            long current = queue.poll();
+            for (int direction = 0; direction < 4; direction++) {
+                long neighbor = TileCoord.neighbour(current, direction);
+                int nx = TileCoord.x(neighbor);
+                int ny = TileCoord.y(neighbor);
+                if (nx >= 0 && ny >= 0 && ny < maze.length && nx < maze[ny].length
+                        && maze[ny][nx] != MazeGenerator.WALL && visited.add(neighbor)) {
+                    queue.add(neighbor);
+                }
+            }
+        }
+        return visited.size();
+    }
+
+    /**
+     * Searches the component of a tile with a primitive queue of tile indices and a visited array.
+     * @param maze The maze to search.
+     * @param x The x position of the tile to start from.
+     * @param y The y position of the tile to start from.
+     * @return The number of tiles in the component.
+     */
+    private static int primitiveSearch(int[][] maze, int x, int y) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        boolean[] visited = new boolean[rows * cols];
+        int[] queue = new int[rows * cols];
+        int tail = 0;
+        queue[tail++] = y * cols + x;
+        visited[y * cols + x] = true;
+        for (int head = 0; head < tail; head++) {
+            int cx = queue[head] % cols;
+            int cy = queue[head] / cols;
+            if (cx > 0 && maze[cy][cx - 1] != MazeGenerator.WALL && !visited[queue[head] - 1]) {
+                visited[queue[head] - 1] = true;
+                queue[tail++] = queue[head] - 1;
+            }
+            if (cx < cols - 1 && maze[cy][cx + 1] != MazeGenerator.WALL && !visited[queue[head] + 1]) {
+                visited[queue[head] + 1] = true;
+                queue[tail++] = queue[head] + 1;
+            }
+            if (cy > 0 && maze[cy - 1][cx] != MazeGenerator.WALL && !visited[queue[head] - cols]) {
+                visited[queue[head] - cols] = true;
+                queue[tail++] = queue[head] - cols;
+            }
+            if (cy < rows - 1 && maze[cy + 1][cx] != MazeGenerator.WALL && !visited[queue[head] + cols]) {
+                visited[queue[head] + cols] = true;
+                queue[tail++] = queue[head] + cols;
+            }
+        }
+        return tail;
+    }
+}
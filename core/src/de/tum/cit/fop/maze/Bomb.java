@@ -9,7 +9,9 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 /**
  * The bomb item which can be found in treasure chests and used by the player to destroy walls and kill enemies.
@@ -74,6 +76,34 @@ public void draw(SpriteBatch batch, float delta) {
         }
     }
 
+    /**
+     * Writes the state of the bomb to a save game, see {@link SaveGame}.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeFloat(frameCounter);
+        out.writeBoolean(exploded);
+    }
+
+    /**
+     * Creates a bomb from its state in a save game. The walls it already removed are part of the saved maze.
+     * @param in The stream to read from.
+     * @param maze The maze in which the game takes place.
+     * @param explosionSound The sound to play when the bomb explodes.
+     * @return The restored bomb.
+     * @throws IOException If reading fails.
+     */
+    public static Bomb readState(DataInputStream in, Maze maze, Sound explosionSound) throws IOException {
+        Bomb bomb = new Bomb(in.readInt(), in.readInt(), maze, explosionSound);
+        bomb.frameCounter = in.readFloat();
+        bomb.exploded = in.readBoolean();
+        bomb.soundPlayed = bomb.exploded;
+        return bomb;
+    }
+
     /**
      * Loads all assets required for the Bomb class.
      */
@@ -94,12 +124,13 @@ private void loadAssets() {
     private void removeWalls(int type) {
         for (int i = -1; i < 2; i++) {
             for (int j = -1; j < 2; j++) {
-                Point p = new Point(x + j, y + i);
-                if (p.x <= 0 || p.x >= maze.getSize() - 1 || p.y <= 0 || p.y >= maze.getSize() - 1 ) {
+                int px = x + j;
+                int py = y + i;
+                if (px <= 0 || px >= maze.getSize() - 1 || py <= 0 || py >= maze.getSize() - 1 ) {
                     continue;
                 }
-                if (maze.getMazeMap().containsKey(p)) {
-                    maze.getMazeMap().put(p, type);
+                if (maze.getTile(px, py) != TileStore.NONE) {
+                    maze.setTile(px, py, type);
                 }
             }
         }
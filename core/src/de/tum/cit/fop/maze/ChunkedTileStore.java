@@ -0,0 +1,298 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+
+/**
+ * A tile store for very large mazes that splits the maze into square chunks. Chunks in which every tile has the
+ * same value share one immutable sentinel array, so only chunks that mix values allocate memory of their own.
+ * Snapshots share all chunk arrays with the store; a chunk is copied the first time it is written afterwards.
+ * A store can also be layered over a read-only base store, e.g. a memory-mapped maze file, in which case chunks
+ * are read from the base until they are first written.
+ */
+public class ChunkedTileStore implements TileStore {
+    /**
+     * The side length of a chunk in tiles.
+     */
+    public static final int CHUNK_SIZE = 32;
+    private static final int CHUNK_SHIFT = 5;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final byte[][] SENTINELS = new byte[256][];
+    private final int width;
+    private final int height;
+    private final int chunksX;
+    private final int chunksY;
+    private final byte[][] chunks;
+    // owned chunks were allocated by this store, those allocated before the current epoch are shared with snapshots
+    private final boolean[] owned;
+    private final int[] epochs;
+    private int epoch;
+    private final boolean readOnly;
+    private final TileStore base;
+
+    /**
+     * Constructor for ChunkedTileStore. All positions start out empty.
+     * @param width The number of tiles along the x axis.
+     * @param height The number of tiles along the y axis.
+     */
+    public ChunkedTileStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+        chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new byte[chunksX * chunksY][];
+        owned = new boolean[chunks.length];
+        epochs = new int[chunks.length];
+        readOnly = false;
+        base = null;
+        Arrays.fill(chunks, sentinel(NONE));
+    }
+
+    /**
+     * Constructor for a store layered over a read-only base store. Tiles are served from the base until a chunk is
+     * first written, at which point only that chunk is copied.
+     * @param base The store holding the initial tiles. It must not change while this store is in use.
+     */
+    public ChunkedTileStore(TileStore base) {
+        this.base = base;
+        width = base.getWidth();
+        height = base.getHeight();
+        chunksX = (width + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunksY = (height + CHUNK_MASK) >>> CHUNK_SHIFT;
+        chunks = new byte[chunksX * chunksY][];
+        owned = new boolean[chunks.length];
+        epochs = new int[chunks.length];
+        readOnly = false;
+    }
+
+    /**
+     * Constructor for a read-only snapshot sharing the chunks of another store. The source starts a new epoch, so
+     * that its next write to any chunk allocated in an earlier epoch makes a private copy first.
+     * @param source The store to take the snapshot of.
+     */
+    private ChunkedTileStore(ChunkedTileStore source) {
+        width = source.width;
+        height = source.height;
+        chunksX = source.chunksX;
+        chunksY = source.chunksY;
+        chunks = source.chunks.clone();
+        owned = new boolean[chunks.length];
+        epochs = new int[0];
+        readOnly = true;
+        base = source.base;
+        source.epoch++;
+    }
+
+    /**
+     * Returns the shared chunk array in which every tile has the given value.
+     * @param value The tile value.
+     * @return The sentinel chunk for the value.
+     */
+    private static synchronized byte[] sentinel(int value) {
+        int index = value & 0xFF;
+        if (SENTINELS[index] == null) {
+            byte[] chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            Arrays.fill(chunk, (byte) value);
+            SENTINELS[index] = chunk;
+        }
+        return SENTINELS[index];
+    }
+
+    /**
+     * Checks whether a chunk array is one of the shared sentinels.
+     * @param chunk The chunk array.
+     * @return true if the chunk is a sentinel, otherwise false.
+     */
+    private static boolean isSentinel(byte[] chunk) {
+        return chunk != null && SENTINELS[chunk[0] & 0xFF] == chunk;
+    }
+
+    /**
+     * Copies the tiles of a chunk that has not been written yet from the base store.
+     * @param chunkIndex The index of the chunk.
+     * @return The new chunk array.
+     */
+    private byte[] loadChunk(int chunkIndex) {
+        byte[] chunk = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        Arrays.fill(chunk, (byte) NONE);
+        int startX = (chunkIndex % chunksX) << CHUNK_SHIFT;
+        int startY = (chunkIndex / chunksX) << CHUNK_SHIFT;
+        int columns = Math.min(CHUNK_SIZE, width - startX);
+        int rows = Math.min(CHUNK_SIZE, height - startY);
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                chunk[(y << CHUNK_SHIFT) | x] = (byte) base.get(startX + x, startY + y);
+            }
+        }
+        return chunk;
+    }
+
+    @Override
+    public int get(int x, int y) {
+        if (!inBounds(x, y)) {
+            return NONE;
+        }
+        byte[] chunk = chunks[(y >>> CHUNK_SHIFT) * chunksX + (x >>> CHUNK_SHIFT)];
+        if (chunk == null) {
+            return base.get(x, y);
+        }
+        return chunk[((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK)];
+    }
+
+    @Override
+    public void set(int x, int y, int value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Tile store snapshots are read-only");
+        }
+        if (!inBounds(x, y)) {
+            return;
+        }
+        int chunkIndex = (y >>> CHUNK_SHIFT) * chunksX + (x >>> CHUNK_SHIFT);
+        int tileIndex = ((y & CHUNK_MASK) << CHUNK_SHIFT) | (x & CHUNK_MASK);
+        byte[] chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            if (base.get(x, y) == value) {
+                return;
+            }
+            chunk = loadChunk(chunkIndex);
+            chunks[chunkIndex] = chunk;
+            owned[chunkIndex] = true;
+            epochs[chunkIndex] = epoch;
+        } else if (chunk[tileIndex] == (byte) value) {
+            return;
+        }
+        // sentinels are shared by all stores, and chunks from an earlier epoch may be shared with a snapshot
+        if (!owned[chunkIndex] || epochs[chunkIndex] != epoch) {
+            chunk = chunk.clone();
+            chunks[chunkIndex] = chunk;
+            owned[chunkIndex] = true;
+            epochs[chunkIndex] = epoch;
+        }
+        chunk[tileIndex] = (byte) value;
+    }
+
+    /**
+     * Sets all tiles of a chunk to the same value, releasing the memory of the chunk.
+     * @param chunkX The x index of the chunk.
+     * @param chunkY The y index of the chunk.
+     * @param value The tile value.
+     */
+    public void fillChunk(int chunkX, int chunkY, int value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Tile store snapshots are read-only");
+        }
+        chunks[chunkY * chunksX + chunkX] = sentinel(value);
+        owned[chunkY * chunksX + chunkX] = false;
+    }
+
+    /**
+     * Replaces every chunk whose tiles all have the same value by the shared sentinel for that value. Useful after
+     * bulk writes, which allocate chunks even if they end up uniform.
+     */
+    @Override
+    public void compact() {
+        if (readOnly) {
+            return;
+        }
+        for (int i = 0; i < chunks.length; i++) {
+            if (!owned[i]) {
+                continue;
+            }
+            int value = uniformValue(chunks[i], i % chunksX, i / chunksX);
+            if (value != MIXED) {
+                chunks[i] = sentinel(value);
+                owned[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Determines whether all tiles of a chunk have the same value. Parts of chunks on the border that lie outside
+     * the store are ignored.
+     * @param chunk The chunk array.
+     * @param chunkX The x index of the chunk.
+     * @param chunkY The y index of the chunk.
+     * @return The shared value, or MIXED if the tiles differ.
+     */
+    private int uniformValue(byte[] chunk, int chunkX, int chunkY) {
+        int columns = Math.min(CHUNK_SIZE, width - (chunkX << CHUNK_SHIFT));
+        int rows = Math.min(CHUNK_SIZE, height - (chunkY << CHUNK_SHIFT));
+        byte first = chunk[0];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                if (chunk[(y << CHUNK_SHIFT) | x] != first) {
+                    return MIXED;
+                }
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns a read-only snapshot of the store. Taking it only copies the table of chunk references.
+     * @return A snapshot sharing the chunks of this store.
+     */
+    @Override
+    public TileStore snapshot() {
+        return readOnly ? this : new ChunkedTileStore(this);
+    }
+
+    /**
+     * Returns the value shared by all tiles of a chunk without scanning it.
+     * @param chunkX The x index of the chunk.
+     * @param chunkY The y index of the chunk.
+     * @return The value of the chunk if it is a sentinel, otherwise MIXED. Chunks still served by the base store
+     *         are reported as MIXED.
+     */
+    public int getUniformValue(int chunkX, int chunkY) {
+        byte[] chunk = chunks[chunkY * chunksX + chunkX];
+        return isSentinel(chunk) ? chunk[0] : MIXED;
+    }
+
+    @Override
+    public void forEachChunk(int x0, int y0, int x1, int y1, ChunkVisitor visitor) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, width - 1);
+        y1 = Math.min(y1, height - 1);
+        for (int chunkY = y0 >>> CHUNK_SHIFT; chunkY <= y1 >>> CHUNK_SHIFT && y0 <= y1; chunkY++) {
+            for (int chunkX = x0 >>> CHUNK_SHIFT; chunkX <= x1 >>> CHUNK_SHIFT && x0 <= x1; chunkX++) {
+                visitor.visit(
+                        Math.max(x0, chunkX << CHUNK_SHIFT),
+                        Math.max(y0, chunkY << CHUNK_SHIFT),
+                        Math.min(x1, (chunkX << CHUNK_SHIFT) + CHUNK_MASK),
+                        Math.min(y1, (chunkY << CHUNK_SHIFT) + CHUNK_MASK),
+                        getUniformValue(chunkX, chunkY)
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks that own a tile array, which is what the memory use of the store scales with.
+     * @return The number of mixed chunks.
+     */
+    public int getAllocatedChunks() {
+        int count = 0;
+        for (boolean chunkOwned : owned) {
+            if (chunkOwned) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
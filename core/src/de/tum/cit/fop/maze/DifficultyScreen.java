@@ -85,6 +85,7 @@ private void createDifficultySelection(Label.LabelStyle titleStyle, TextButton.T
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setDifficulty(0.6f);
+                game.prepareMazes();
                 game.setScreen(new MazeSizeScreen(game));
             }
         });
@@ -95,6 +96,7 @@ public void changed(ChangeEvent event, Actor actor) {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setDifficulty(0.8f);
+                game.prepareMazes();
                 game.setScreen(new MazeSizeScreen(game));
             }
         });
@@ -105,6 +107,7 @@ public void changed(ChangeEvent event, Actor actor) {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setDifficulty(1.0f);
+                game.prepareMazes();
                 game.setScreen(new MazeSizeScreen(game));
             }
         });
@@ -8,31 +8,37 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
-import java.util.List;
 
 /**
  * Enemy robots that patrol the maze and chase and attack the player when he comes close.
  */
 public class Enemy extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
 
-    private static final int[][] DIRECTIONS = {
-            {-1, 0}, {1, 0}, {0, -1}, {0, 1}
-    };
+    private static final long[] EMPTY_PATH = new long[0];
+    private static final long WAIT = TileCoord.of(0, 0);
+    private static final long NO_TARGET = TileCoord.of(-1, -1);
 
-    private List<Point> playerPath;
-    private List<Point> patrolPath;
+    private long chaseTarget;
+    private long[] patrolPath;
+    private int patrolStep;
     private final Maze maze;
     private final Player player;
     private TextureRegion currentFrame;
     private boolean dir;
     private float damageCooldown;
-    private float pathCooldown;
     private float waitTime;
     private float attackTime;
     private final float difficulty;
     private boolean dead;
+    private long pathSeed;
     private final Sound attackSound;
 
 
@@ -45,18 +51,19 @@ public class Enemy extends Entity {
      * @param maze The maze in which the game takes place.
      * @param player The player with which to interact.
      * @param difficulty The difficulty modifier of the current level.
+     * @param seed The seed of the random patrol paths of the enemy.
      */
-    public Enemy(int x, int y, Maze maze, Player player, float difficulty) {
+    public Enemy(int x, int y, Maze maze, Player player, float difficulty, long seed) {
         super(x, y, player);
         this.maze = maze;
         this.difficulty = difficulty;
+        pathSeed = seed;
 
         this.player = player;
-        playerPath = new ArrayList<>();
-        patrolPath = new ArrayList<>();
+        chaseTarget = NO_TARGET;
+        patrolPath = EMPTY_PATH;
         waitTime = 4;
         damageCooldown = 3;
-        pathCooldown = 1;
         attackTime = 0;
         dead = false;
         attackSound = Gdx.audio.newSound(Gdx.files.internal("enemyattack.mp3"));
@@ -97,7 +104,7 @@ protected void loadAssets() {
     public void draw(SpriteBatch batch, float delta) {
         frameCounter += delta;
 
-        if (!dead && maze.getMazeMap().get(new Point(x / GameScreen.tileSize, y / GameScreen.tileSize)) == 3) {
+        if (!dead && maze.getTile(x / GameScreen.tileSize, y / GameScreen.tileSize) == 3) {
             die();
         }
 
@@ -120,45 +127,61 @@ public void draw(SpriteBatch batch, float delta) {
     }
 
     /**
-     * Calculates where the enemy should walk.
+     * Calculates where the enemy should walk. The way to the player is read from the flow field shared by all
+     * enemies, see {@link Player#getFlowField()}, and the enemy chases the player when the player is at most
+     * 10 * difficulty tiles away, counting the tile of the enemy.
      * @param delta The time in seconds since the last render.
      */
     private void handleMovement(float delta) {
         int xDiff = 0;
         int yDiff = 0;
         int speed;
-        List<Point> currentPath = new ArrayList<>();
+        long target = NO_TARGET;
 
         waitTime -= delta;
-        pathCooldown -= delta;
 
-        boolean chasePlayer = !playerPath.isEmpty() && playerPath.size() <= 10 * difficulty;
+        long tile = TileCoord.of(x / GameScreen.tileSize, y / GameScreen.tileSize);
+        FlowField flowField = player.getFlowField();
+        flowField.update(TileCoord.of(player.getX() / GameScreen.tileSize, player.getY() / GameScreen.tileSize),
+                (int) (10 * difficulty) - 1);
+        int distance = flowField.getDistance(tile);
+        boolean chasePlayer = distance >= 0 && distance + 1 <= 10 * difficulty;
 
         if (chasePlayer && waitTime < 2) {
             waitTime = 0;
         }
 
         if (chasePlayer) {
-            currentPath = playerPath;
+            if (chaseTarget == NO_TARGET) {
+                // walk to the middle of the current tile first, the enemy may be between tiles
+                chaseTarget = tile;
+            }
+            target = chaseTarget;
             speed = (int) (9 * GameScreen.tileSize * delta);
-            patrolPath = Collections.emptyList();
+            patrolPath = EMPTY_PATH;
+            patrolStep = 0;
         } else {
-            if (patrolPath.isEmpty()) {
+            chaseTarget = NO_TARGET;
+            if (patrolStep >= patrolPath.length) {
                 patrolPath = randomPath();
+                patrolStep = 0;
+            }
+            if (patrolStep < patrolPath.length) {
+                target = patrolPath[patrolStep];
             }
-            currentPath = patrolPath;
             speed = (int) (4 * GameScreen.tileSize * delta);
         }
 
-        if (!currentPath.isEmpty()) {
-            xDiff = currentPath.get(0).x * GameScreen.tileSize + GameScreen.tileSize / 2 - x;
-            yDiff = currentPath.get(0).y * GameScreen.tileSize + GameScreen.tileSize / 2 - y;
+        boolean hasTarget = target != NO_TARGET;
+        if (hasTarget) {
+            xDiff = TileCoord.x(target) * GameScreen.tileSize + GameScreen.tileSize / 2 - x;
+            yDiff = TileCoord.y(target) * GameScreen.tileSize + GameScreen.tileSize / 2 - y;
         }
 
         if (waitTime <= 0) {
-            if (!currentPath.isEmpty() && currentPath.get(0).x == 0 && currentPath.get(0).y == 0) {
+            if (!chasePlayer && target == WAIT) {
                 waitTime += 2f;
-                patrolPath.remove(0);
+                patrolStep++;
                 return;
             }
             if (attackTime <= 0) {
@@ -192,13 +215,10 @@ private void handleMovement(float delta) {
                 y -= speed;
             }
             if (Math.abs(xDiff) + Math.abs(yDiff) < speed * 3) {
-                playerPath = bfs(new Point(x / GameScreen.tileSize, y / GameScreen.tileSize),
-                        new Point(player.getX() / GameScreen.tileSize, player.getY() / GameScreen.tileSize));
                 if (chasePlayer) {
-                    if (!playerPath.isEmpty())
-                        playerPath.remove(0);
+                    chaseTarget = flowField.getNextStep(chaseTarget);
                 } else {
-                    patrolPath.remove(0);
+                    patrolStep++;
                 }
             }
 
@@ -206,11 +226,7 @@ private void handleMovement(float delta) {
             if (attackTime <= 0) {
                 currentFrame = animations.get(1).getKeyFrame(frameCounter, true);
             }
-            if (pathCooldown <= 0) {
-                playerPath = bfs(new Point(x / GameScreen.tileSize, y / GameScreen.tileSize),
-                        new Point(player.getX() / GameScreen.tileSize, player.getY() / GameScreen.tileSize));
-                pathCooldown = 0.05f;
-            }
+            chaseTarget = NO_TARGET;
         }
     }
 
@@ -236,78 +252,110 @@ private void handleProximity(){
     }
 
     /**
-     * Breadth-first search algorithm used to find the shortest path to the player.
-     * @param start The current position of the enemy, used as the starting point for the search.
-     * @param target The current position of the player, used as thr target for the search.
-     * @return The shortest list of points the enemy needs to traverse to get to the player.
-     *         An empty list if the player can't be found in a certain number of iterations.
+     * A random path used for the patrolling behavior. Every path is drawn from its own seed, which is advanced
+     * afterwards, so that the sequence of paths can be saved and continued.
+     * @return An array of packed tile coordinates which serves as an arbitrary path for patrolling. Coordinates
+     *         (0,0) indicate the enemy should wait for some time before going to the next tile.
      */
-    private List<Point> bfs(Point start, Point target) {
-        Queue<Point> queue = new LinkedList<>();
-        Set<Point> visited = new HashSet<>();
-        Map<Point, Point> parent = new HashMap<>();
-
-        queue.add(start);
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            Point current = queue.poll();
+    private long[] randomPath() {
+        long[] path = new long[20];
+        int length = 0;
+        long current = TileCoord.of(x / GameScreen.tileSize, y / GameScreen.tileSize);
+        Random random = new Random(pathSeed);
+        int dir;
 
-            if (current.equals(target)) {
-                List<Point> path = new ArrayList<>();
-                for (Point at = target; at != null; at = parent.get(at)) {
-                    path.add(at);
-                }
-                Collections.reverse(path);
-                return path;
-            }
+        path[length++] = WAIT;
+        path[length++] = WAIT;
 
-            for (int[] direction : DIRECTIONS) {
-                Point neighbor = new Point(
-                        current.x + direction[0],
-                        current.y + direction[1]
-                );
-
-                try {
-                    if (maze.getMazeMap().get(neighbor) != 0 && !visited.contains(neighbor)) {
-                        queue.add(neighbor);
-                        visited.add(neighbor);
-                        parent.put(neighbor, current);
-                    }
-                } catch (NullPointerException ignored) {}
+        while (length < path.length) {
+            dir = random.nextInt(5);
+            if (dir == 4) {
+                path[length++] = WAIT;
+                continue;
             }
-            if (visited.size() > 500) {
-                return Collections.emptyList();
+            long next = TileCoord.neighbour(current, dir);
+            int tile = maze.getTile(TileCoord.x(next), TileCoord.y(next));
+            if (tile != TileStore.NONE && tile != 0) {
+                path[length++] = next;
+                current = next;
             }
         }
-        return Collections.emptyList();
+        pathSeed = random.nextLong();
+        return path;
+    }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeLong(chaseTarget);
+        writePath(out, patrolPath);
+        out.writeInt(patrolStep);
+        out.writeBoolean(dir);
+        out.writeFloat(damageCooldown);
+        out.writeFloat(waitTime);
+        out.writeFloat(attackTime);
+        out.writeBoolean(dead);
+        out.writeLong(pathSeed);
     }
 
     /**
-     * A random path used for the patrolling behavior.
-     * @return A list of points which serves as an arbitrary path for patrolling. Points with coordinates (0,0)
-     *         indicate the enemy should wait for some time before going to the next point.
+     * Creates an enemy from its state in a save game, consisting of the next tile towards the player, the patrol
+     * path, the timers and the seed of the patrol paths.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the enemy.
+     * @param y The y position of the enemy.
+     * @param maze The maze in which the game takes place.
+     * @param player The player with which to interact.
+     * @param difficulty The difficulty modifier of the current level.
+     * @return The restored enemy.
+     * @throws IOException If reading fails or the state is invalid.
      */
-    private List<Point> randomPath() {
-        List<Point> path = new ArrayList<>();
-        Point current = new Point(x / GameScreen.tileSize, y / GameScreen.tileSize);
-        Random random = new Random();
-        int dir;
+    public static Enemy readState(DataInputStream in, int version, int x, int y, Maze maze, Player player,
+                                  float difficulty) throws IOException {
+        checkVersion(version, STATE_VERSION);
+        Enemy enemy = new Enemy(x, y, maze, player, difficulty, TileCoord.of(x, y));
+        enemy.chaseTarget = in.readLong();
+        enemy.patrolPath = readPath(in);
+        enemy.patrolStep = Math.min(in.readInt(), enemy.patrolPath.length);
+        enemy.dir = in.readBoolean();
+        enemy.damageCooldown = in.readFloat();
+        enemy.waitTime = in.readFloat();
+        enemy.attackTime = in.readFloat();
+        enemy.dead = in.readBoolean();
+        enemy.pathSeed = in.readLong();
+        return enemy;
+    }
 
-        path.add(new Point(0,0));
-        path.add(new Point(0,0));
+    /**
+     * Writes a path of packed tile coordinates.
+     * @param out The stream to write to.
+     * @param path The path to write.
+     * @throws IOException If writing fails.
+     */
+    private static void writePath(DataOutputStream out, long[] path) throws IOException {
+        out.writeInt(path.length);
+        for (long tile : path) {
+            out.writeLong(tile);
+        }
+    }
 
-        while (path.size() < 20) {
-            dir = random.nextInt(5);
-            if (dir == 4) {
-                path.add(new Point(0 ,0));
-                continue;
-            }
-            Point next = new Point(current.x + DIRECTIONS[dir][0], current.y + DIRECTIONS[dir][1]);
-            if (maze.getMazeMap().containsKey(next) && maze.getMazeMap().get(next) != 0) {
-                path.add(next);
-                current = next;
-            }
+    /**
+     * Reads a path of packed tile coordinates.
+     * @param in The stream to read from.
+     * @return The path.
+     * @throws IOException If reading fails or the path length is invalid.
+     */
+    private static long[] readPath(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > 1 << 16) {
+            throw new IOException("Invalid enemy path length " + length);
+        }
+        if (length == 0) {
+            return EMPTY_PATH;
+        }
+        long[] path = new long[length];
+        for (int i = 0; i < length; i++) {
+            path[i] = in.readLong();
         }
         return path;
     }
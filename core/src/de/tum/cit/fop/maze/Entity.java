@@ -4,6 +4,10 @@
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -47,6 +51,27 @@ public Entity(int x, int y, Player player) {
      */
     public abstract void draw(SpriteBatch batch, float delta);
 
+    /**
+     * Writes the state specific to the type of the entity to a save game, see {@link SaveGame}. The position and
+     * animation time are written by the save game itself. Every subclass has a static readState method reading the
+     * same data back, and a STATE_VERSION that is increased whenever the format changes.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public abstract void writeState(DataOutputStream out) throws IOException;
+
+    /**
+     * Checks that the state of an entity in a save game was written in a version this build can read.
+     * @param version The version of the saved state.
+     * @param supported The current version of the state of the entity type.
+     * @throws IOException If the saved state is newer than the supported version.
+     */
+    protected static void checkVersion(int version, int supported) throws IOException {
+        if (version < 1 || version > supported) {
+            throw new IOException("Unsupported entity state version " + version);
+        }
+    }
+
     public List<Animation<TextureRegion>> getAnimations() {
         return animations;
     }
@@ -9,10 +9,18 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * The exit barrier that prevents the player from leaving the maze without the key.
  */
 public class ExitBarrier extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     private boolean active;
     private boolean vertical;
     private BitmapFont font;
@@ -81,4 +89,39 @@ public void draw(SpriteBatch batch, float delta) {
             font.draw(batch, "Override: Code missing!", x, y);
         }
     }
+
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeBoolean(vertical);
+        out.writeBoolean(active);
+        out.writeFloat(textDisplayTime);
+    }
+
+    /**
+     * Creates an exit barrier from its state in a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the exit barrier.
+     * @param y The y position of the exit barrier.
+     * @param player The player with which to interact.
+     * @param font Font for the warning text if the player attempts to open the gate without a key.
+     * @return The restored exit barrier.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public static ExitBarrier readState(DataInputStream in, int version, int x, int y, Player player, BitmapFont font)
+            throws IOException {
+        checkVersion(version, STATE_VERSION);
+        ExitBarrier barrier = new ExitBarrier(x, y, player, font, in.readBoolean());
+        barrier.active = in.readBoolean();
+        barrier.textDisplayTime = in.readFloat();
+        return barrier;
+    }
+
+    /**
+     * Returns whether the barrier is displayed vertically.
+     * @return true if the barrier is vertical, false if it is horizontal.
+     */
+    public boolean isVertical() {
+        return vertical;
+    }
 }
@@ -0,0 +1,126 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+
+/**
+ * The walking distance to a target tile and the direction to step in towards it, for every tile within a given
+ * distance of the target. It is computed with one breadth-first search from the target whenever the target moves to
+ * another tile or the maze changes, and is then shared by everything that follows the target, so that each of them
+ * finds its next step with a single lookup. Tiles further away than the distance cannot be reached within it, so the
+ * field only covers a square window around the target.
+ */
+public class FlowField {
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+    private static final long NO_TILE = TileCoord.of(-1, -1);
+
+    private final Maze maze;
+    private long target = NO_TILE;
+    private int radius = -1;
+    private long version;
+    private int size;
+    private int[] distance = new int[0];
+    private byte[] direction = new byte[0];
+    private int[] queue = new int[0];
+
+    /**
+     * Constructor for FlowField.
+     * @param maze The maze to compute the field in.
+     */
+    public FlowField(Maze maze) {
+        this.maze = maze;
+    }
+
+    /**
+     * Makes sure the field leads to a given tile and covers at least a given distance around it. The field is only
+     * computed again if the target tile, the distance or the maze changed.
+     * @param target The packed coordinate of the tile to lead to.
+     * @param radius The largest walking distance from the target to cover.
+     */
+    public void update(long target, int radius) {
+        if (target == this.target && radius <= this.radius && maze.getVersion() == version) {
+            return;
+        }
+        this.target = target;
+        this.radius = Math.max(radius, this.radius);
+        version = maze.getVersion();
+        size = 2 * this.radius + 1;
+        if (distance.length < size * size) {
+            distance = new int[size * size];
+            direction = new byte[size * size];
+            queue = new int[size * size];
+        }
+        Arrays.fill(distance, 0, size * size, -1);
+
+        int targetX = TileCoord.x(target);
+        int targetY = TileCoord.y(target);
+        int tile = maze.getTile(targetX, targetY);
+        if (tile == 0 || tile == TileStore.NONE) {
+            return;
+        }
+        int center = this.radius * size + this.radius;
+        distance[center] = 0;
+        queue[0] = center;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            if (distance[current] == this.radius) {
+                continue;
+            }
+            int x = current % size;
+            int y = current / size;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (nx < 0 || ny < 0 || nx >= size || ny >= size || distance[ny * size + nx] >= 0) {
+                    continue;
+                }
+                tile = maze.getTile(targetX + nx - this.radius, targetY + ny - this.radius);
+                if (tile != 0 && tile != TileStore.NONE) {
+                    distance[ny * size + nx] = distance[current] + 1;
+                    // the opposite direction leads back to the current tile
+                    direction[ny * size + nx] = (byte) (dir ^ 1);
+                    queue[tail++] = ny * size + nx;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the walking distance from a tile to the target.
+     * @param tile The packed coordinate of the tile.
+     * @return The number of steps to the target, or -1 if the target is further away than the field covers.
+     */
+    public int getDistance(long tile) {
+        int index = index(tile);
+        return index < 0 ? -1 : distance[index];
+    }
+
+    /**
+     * Returns the tile to step on from a given tile to get closer to the target.
+     * @param tile The packed coordinate of the tile.
+     * @return The packed coordinate of the neighbouring tile one step closer to the target, the tile itself if it is
+     *         the target, or the tile itself if the target is further away than the field covers.
+     */
+    public long getNextStep(long tile) {
+        int index = index(tile);
+        if (index < 0 || distance[index] <= 0) {
+            return tile;
+        }
+        return TileCoord.neighbour(tile, direction[index]);
+    }
+
+    /**
+     * Returns the index of a tile in the window around the target.
+     * @param tile The packed coordinate of the tile.
+     * @return The index, or -1 if the tile lies outside the window.
+     */
+    private int index(long tile) {
+        int x = TileCoord.x(tile) - TileCoord.x(target) + radius;
+        int y = TileCoord.y(tile) - TileCoord.y(target) + radius;
+        if (target == NO_TILE || x < 0 || y < 0 || x >= size || y >= size) {
+            return -1;
+        }
+        return y * size + x;
+    }
+}
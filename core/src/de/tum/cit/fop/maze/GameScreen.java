@@ -13,7 +13,6 @@
 import com.badlogic.gdx.utils.ScreenUtils;
 import com.badlogic.gdx.utils.viewport.ExtendViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
-import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -49,10 +48,23 @@ public class GameScreen implements Screen {
      * Constructor for GameScreen. Sets up the camera and font and initializes the maze.
      *
      * @param game The main game class, used to access global resources and methods.
+     * @param maze The maze in which the game takes place.
      */
-    public GameScreen(MazeRunnerGame game) {
+    public GameScreen(MazeRunnerGame game, Maze maze) {
+        this(game, maze, true);
+    }
+
+    /**
+     * Constructor for GameScreen, optionally without populating the maze. Used to restore a saved game, whose
+     * player and entities are read from the save game instead, see {@link SaveGame}.
+     *
+     * @param game The main game class, used to access global resources and methods.
+     * @param maze The maze in which the game takes place.
+     * @param spawn Whether to populate the maze with the entities it was generated with.
+     */
+    GameScreen(MazeRunnerGame game, Maze maze, boolean spawn) {
         this.game = game;
-        maze = new Maze("maps/maze.properties", game.getMazeSize());
+        this.maze = maze;
         player = new Player(maze);
         entities = new ArrayList<Entity>();
 
@@ -76,7 +88,9 @@ public GameScreen(MazeRunnerGame game) {
 
         pauseMenu = new PauseMenu(game, this, viewport);
 
-        spawnEntities();
+        if (spawn) {
+            spawnEntities();
+        }
         shapeRenderer = new ShapeRenderer();
         shapeRenderer.setProjectionMatrix(hudCamera.combined);
 
@@ -90,62 +104,111 @@ public GameScreen(MazeRunnerGame game) {
     }
 
     /**
-     * Populates the maze with entities such as enemies, traps and items.
+     * Populates the maze with entities such as enemies, traps and items. Chunks of the entity layer without any
+     * entity are skipped without reading their tiles.
      */
     public void spawnEntities() {
-        Point keyChest = new Point(0, 0);
-        for (var entry : maze.getEntityMap().entrySet()) {
-            Point a = new Point(entry.getKey().x, entry.getKey().y + 1);
-            Point b = new Point(entry.getKey().x, entry.getKey().y - 1);
-            boolean vertical = maze.getMazeMap().containsKey(a) && maze.getMazeMap().get(a) == 0;
-            if (vertical && maze.getMazeMap().containsKey(b) && maze.getMazeMap().get(b) != 0) {
-                vertical = false;
-            }
-
-            switch (entry.getValue()) {
-                case 20, 21, 22, 23, 24 -> {
-                    Item.types chestItem;
-                    switch (entry.getValue()) {
-                        case 20 -> chestItem = Item.types.BOOST;
-                        case 21 -> chestItem = Item.types.BOMB;
-                        case 22 -> chestItem = Item.types.ARROW;
-                        case 23 -> chestItem = Item.types.SHIELD;
-                        default -> chestItem = Item.types.KEY;
+        long[] keyChest = {TileCoord.of(0, 0)};
+        TileStore entityGrid = maze.getEntities();
+        entityGrid.forEachChunk(0, 0, entityGrid.getWidth() - 1, entityGrid.getHeight() - 1,
+                (x0, y0, x1, y1, uniform) -> {
+                    if (uniform == TileStore.NONE) {
+                        return;
                     }
-                    if (chestItem == Item.types.KEY) {
-                        keyChest = new Point(entry.getKey().x, entry.getKey().y);
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            int type = entityGrid.get(x, y);
+                            if (type != TileStore.NONE && spawnEntity(x, y, type)) {
+                                keyChest[0] = TileCoord.of(x, y);
+                            }
+                        }
                     }
-                    entities.add(new TreasureChest(entry.getKey().x, entry.getKey().y, player, chestItem));
-                }
-                case 11 ->
-                        entities.add(new Enemy(entry.getKey().x, entry.getKey().y, maze, player, game.getDifficulty()));
-                case 12 -> {
-                    entities.add(new ExitBarrier(entry.getKey().x, entry.getKey().y, player, font, vertical));
-                    maze.getMazeMap().put(new Point(a.x + (vertical ? 0 : 1), a.y - (vertical ? 0 : 1)), 2);
-                    maze.getMazeMap().put(entry.getKey(), 2);
-                    pointer = new ExitPointer(
-                            (int) (entry.getKey().x * tileSize + (vertical ? 0 : tileSize)),
-                            (int) (entry.getKey().y * tileSize + (vertical ? tileSize : 0))
-                    );
-                }
-                case 13 ->
-                        entities.add(new LaserTrap(entry.getKey().x, entry.getKey().y, player, vertical, game.getDifficulty()));
-                case 14 ->
-                        entities.add(new SpikeTrap(entry.getKey().x, entry.getKey().y, player, game.getDifficulty()));
-                case 15 ->
-                        entities.add(new HealthOrb(entry.getKey().x, entry.getKey().y, player));
-            }
-
-        }
+                });
 
         List<TreasureChest> chests = entities.stream().filter(TreasureChest.class::isInstance).map(TreasureChest.class::cast).toList();
         if (!chests.isEmpty()) {
             for (TreasureChest chest : chests) {
-                chest.setKeyLocation(keyChest);
+                chest.setKeyLocation(keyChest[0]);
             }
         }
     }
 
+    /**
+     * Spawns the entity of a single tile of the entity layer.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param type The entity type of the tile.
+     * @return true if the entity is the treasure chest holding the key, otherwise false.
+     */
+    private boolean spawnEntity(int x, int y, int type) {
+        long seed = maze.getSeed();
+        boolean vertical = maze.getTile(x, y + 1) == 0;
+        int below = maze.getTile(x, y - 1);
+        if (vertical && below != TileStore.NONE && below != 0) {
+            vertical = false;
+        }
+
+        switch (type) {
+            case 20, 21, 22, 23, 24 -> {
+                Item.types chestItem;
+                switch (type) {
+                    case 20 -> chestItem = Item.types.BOOST;
+                    case 21 -> chestItem = Item.types.BOMB;
+                    case 22 -> chestItem = Item.types.ARROW;
+                    case 23 -> chestItem = Item.types.SHIELD;
+                    default -> chestItem = Item.types.KEY;
+                }
+                entities.add(new TreasureChest(x, y, player, chestItem));
+            }
+            case 11 ->
+                    entities.add(new Enemy(x, y, maze, player, game.getDifficulty(),
+                            Maze.deriveSeed(seed, TileCoord.of(x, y))));
+            case 12 -> {
+                entities.add(new ExitBarrier(x, y, player, font, vertical));
+                maze.setTile(x + (vertical ? 0 : 1), y + 1 - (vertical ? 0 : 1), 2);
+                maze.setTile(x, y, 2);
+                createPointer(x, y, vertical);
+            }
+            case 13 ->
+                    entities.add(new LaserTrap(x, y, player, vertical, game.getDifficulty(),
+                            Maze.deriveSeed(seed, TileCoord.of(x, y))));
+            case 14 ->
+                    entities.add(new SpikeTrap(x, y, player, game.getDifficulty(),
+                            Maze.deriveSeed(seed, TileCoord.of(x, y))));
+            case 15 ->
+                    entities.add(new HealthOrb(x, y, player));
+        }
+        return type == 24;
+    }
+
+
+    /**
+     * Creates the pointer showing the direction of the exit.
+     * @param x The x position of the exit.
+     * @param y The y position of the exit.
+     * @param vertical Whether the exit barrier is vertical.
+     */
+    private void createPointer(int x, int y, boolean vertical) {
+        pointer = new ExitPointer(
+                (int) (x * tileSize + (vertical ? 0 : tileSize)),
+                (int) (y * tileSize + (vertical ? tileSize : 0))
+        );
+    }
+
+    /**
+     * Restores the entities and elapsed time of a saved game.
+     * @param elapsed The time in seconds the game had been running.
+     * @param restored The entities of the saved game.
+     */
+    void restore(float elapsed, List<Entity> restored) {
+        sinusInput = elapsed;
+        entities.addAll(restored);
+        for (Entity e : restored) {
+            if (e instanceof ExitBarrier barrier) {
+                createPointer(barrier.x / tileSize, barrier.y / tileSize, barrier.isVertical());
+            }
+        }
+    }
 
     /**
      * Renders the game. Also serves as the main loop for user input while the game is active.
@@ -167,6 +230,10 @@ public void render(float delta) {
             }
         }
 
+        if (!isPaused && !player.isDead() && Gdx.input.isKeyJustPressed(Input.Keys.F5)) {
+            game.saveGame(this);
+        }
+
         if (!isPaused) {
             ScreenUtils.clear(0, 0, 0, 1);
 
@@ -187,7 +254,7 @@ public void render(float delta) {
             }
 
             if (!player.isDead()) {
-                maze.draw(game.getSpriteBatch());
+                maze.draw(game.getSpriteBatch(), camera);
                 for (Entity e : entities) {
                     e.draw(game.getSpriteBatch(), delta);
                 }
@@ -202,6 +269,7 @@ public void render(float delta) {
             }
 
             player.draw(game.getSpriteBatch(), delta);
+            maze.publishSnapshot();
 
             game.getSpriteBatch().end();
 
@@ -342,6 +410,38 @@ public Player getPlayer(){
         return player;
     }
 
+    /**
+     * Returns the maze in which the game takes place.
+     * @return The maze.
+     */
+    Maze getMaze() {
+        return maze;
+    }
+
+    /**
+     * Returns the entities populating the maze.
+     * @return The list of entities.
+     */
+    List<Entity> getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns the font used by the game screen and its entities.
+     * @return The font.
+     */
+    BitmapFont getFont() {
+        return font;
+    }
+
+    /**
+     * Returns the time in seconds the game has been running.
+     * @return The elapsed time.
+     */
+    float getElapsedTime() {
+        return sinusInput;
+    }
+
     /**
      * Returns the time in minutes that was left at the end of the game.
      * @return The time in string format.
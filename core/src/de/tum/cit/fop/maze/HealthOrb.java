@@ -8,10 +8,18 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * Health orbs that can be found in the maze and replenish some of the player's health.
  */
 public class HealthOrb extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     private boolean collected;
     private Sound collectOrbSound;
 
@@ -54,6 +62,28 @@ public void draw(SpriteBatch batch, float delta) {
         batch.draw(animations.get(0).getKeyFrame(frameCounter, true), x, y, GameScreen.tileSize, GameScreen.tileSize);
     }
 
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeBoolean(collected);
+    }
+
+    /**
+     * Creates a health orb from its state in a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the health orb.
+     * @param y The y position of the health orb.
+     * @param player The player that can collect the orb.
+     * @return The restored health orb.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public static HealthOrb readState(DataInputStream in, int version, int x, int y, Player player) throws IOException {
+        checkVersion(version, STATE_VERSION);
+        HealthOrb orb = new HealthOrb(x, y, player);
+        orb.collected = in.readBoolean();
+        return orb;
+    }
+
     @Override
     public void dispose() {
         super.dispose();
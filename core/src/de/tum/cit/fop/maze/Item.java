@@ -3,6 +3,9 @@
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
+import java.io.DataInputStream;
+import java.io.IOException;
+
 /**
  * An item that can be found in treasure chests.
  */
@@ -41,6 +44,20 @@ public enum types {
         textureRegion = new TextureRegion(texture);
     }
 
+    /**
+     * Reads an item type written as its ordinal, as done in save games.
+     * @param in The stream to read from.
+     * @return The item type.
+     * @throws IOException If reading fails or the ordinal is not a valid item type.
+     */
+    static types readType(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= types.values().length) {
+            throw new IOException("Invalid item type " + ordinal);
+        }
+        return types.values()[ordinal];
+    }
+
     /**
      * Returns the type of the item from the types enum.
      * @return The item type.
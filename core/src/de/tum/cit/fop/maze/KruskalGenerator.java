@@ -0,0 +1,92 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Carves mazes with a randomized version of Kruskal's algorithm. All walls between neighbouring cells are shuffled
+ * and removed in that order whenever they separate two cells that are not connected yet, which is tracked in a
+ * union-find structure. The resulting mazes have many short dead ends and branch much more than depth-first mazes.
+ */
+public class KruskalGenerator implements MazeGenerator {
+    @Override
+    public void carve(int[][] maze, int minX, int minY, int maxX, int maxY, Random random) {
+        int width = (maxX - minX) / 2 + 1;
+        int height = (maxY - minY) / 2 + 1;
+        int cells = width * height;
+
+        // an edge is a cell index times two, plus 0 for the wall to its right or 1 for the wall below it
+        int[] edges = new int[2 * cells - width - height];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (cell % width < width - 1) {
+                edges[count++] = cell * 2;
+            }
+            if (cell / width < height - 1) {
+                edges[count++] = cell * 2 + 1;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = edges[i];
+            edges[i] = edges[j];
+            edges[j] = swap;
+        }
+
+        // a root holds minus the size of its set, every other cell the index of its parent
+        int[] parent = new int[cells];
+        Arrays.fill(parent, -1);
+        for (int cell = 0; cell < cells; cell++) {
+            maze[minY + cell / width * 2][minX + cell % width * 2] = PATH;
+        }
+
+        int joined = 0;
+        for (int i = 0; i < count && joined < cells - 1; i++) {
+            int cell = edges[i] >> 1;
+            boolean down = (edges[i] & 1) == 1;
+            int other = down ? cell + width : cell + 1;
+            int a = find(parent, cell);
+            int b = find(parent, other);
+            if (a == b) {
+                continue;
+            }
+            if (parent[a] > parent[b]) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            parent[a] += parent[b];
+            parent[b] = a;
+            joined++;
+
+            int x = minX + cell % width * 2;
+            int y = minY + cell / width * 2;
+            if (down) {
+                maze[y + 1][x] = PATH;
+            } else {
+                maze[y][x + 1] = PATH;
+            }
+        }
+    }
+
+    /**
+     * Finds the root of the set containing a cell, halving the path to it on the way.
+     * @param parent The union-find array.
+     * @param cell The index of the cell.
+     * @return The index of the root.
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] >= 0) {
+            if (parent[parent[cell]] >= 0) {
+                parent[cell] = parent[parent[cell]];
+            }
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    @Override
+    public String getName() {
+        return "Kruskal";
+    }
+}
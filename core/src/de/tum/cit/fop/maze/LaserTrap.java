@@ -8,12 +8,19 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 /**
  * A laser trap what appears in narrow corridors of the maze and damages the player when active.
  */
 public class LaserTrap extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     boolean active;
     boolean vertical;
     private static final int ACTIVATE_INTERVAL = 3;
@@ -30,14 +37,15 @@ public class LaserTrap extends Entity {
      * @param player The player with which to interact.
      * @param vertical Whether the laser is vertical or horizontal.
      * @param difficulty The difficulty modifier of the current level.
+     * @param seed The seed of the random activation timing of the trap.
      */
-    public LaserTrap(int x, int y, Player player, boolean vertical, float difficulty) {
+    public LaserTrap(int x, int y, Player player, boolean vertical, float difficulty, long seed) {
         super(x, y, player);
         this.vertical = vertical;
         this.active = true;
         this.difficulty = difficulty;
         damageCooldown = 0;
-        timeOffset = new Random().nextFloat(ACTIVATE_INTERVAL);
+        timeOffset = new Random(seed).nextFloat(ACTIVATE_INTERVAL);
         laserAttack = Gdx.audio.newSound(Gdx.files.internal("lasersound.mp3"));
 
     }
@@ -89,6 +97,35 @@ public void draw(SpriteBatch batch, float delta) {
         handlePlayer();
     }
 
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeBoolean(vertical);
+        out.writeBoolean(active);
+        out.writeFloat(timeOffset);
+        out.writeFloat(damageCooldown);
+    }
+
+    /**
+     * Creates a laser trap from its state in a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the laser trap.
+     * @param y The y position of the laser trap.
+     * @param player The player with which to interact.
+     * @param difficulty The difficulty modifier of the current level.
+     * @return The restored laser trap.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public static LaserTrap readState(DataInputStream in, int version, int x, int y, Player player, float difficulty)
+            throws IOException {
+        checkVersion(version, STATE_VERSION);
+        LaserTrap trap = new LaserTrap(x, y, player, in.readBoolean(), difficulty, 0);
+        trap.active = in.readBoolean();
+        trap.timeOffset = in.readFloat();
+        trap.damageCooldown = in.readFloat();
+        return trap;
+    }
+
     /**
      * Damages the player character when he touches the laser.
      */
@@ -0,0 +1,305 @@
+package de.tum.cit.fop.maze;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.*;
+
+/**
+ * A single file holding many levels, any of which can be loaded without reading the others. The file starts with
+ * the magic number "MZPK", a format version and the number of levels, followed by a table of contents with the
+ * name, offset, compressed and uncompressed length and CRC32 of every level. Each level is a binary maze file, see
+ * {@link MazeFile}, compressed with deflate. Loading a level starts decompressing the next one in the background.
+ */
+public class LevelPack implements Closeable {
+    /**
+     * The magic number at the start of every level pack, "MZPK" in ASCII.
+     */
+    public static final int MAGIC = 0x4D5A504B;
+    /**
+     * The version of the file format.
+     */
+    public static final short VERSION = 1;
+    private final FileChannel channel;
+    private final String[] names;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] lengths;
+    private final int[] checksums;
+    private final ExecutorService prefetcher;
+    private int prefetchedIndex = -1;
+    private Future<TileStore> prefetched;
+
+    /**
+     * Constructor for LevelPack. Reads the table of contents of the pack.
+     * @param channel The open channel of the pack file.
+     * @throws IOException If the file is not a valid level pack.
+     */
+    private LevelPack(FileChannel channel) throws IOException {
+        this.channel = channel;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0))));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a level pack");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported level pack version " + version);
+        }
+        int count = in.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid level count " + count);
+        }
+        names = new String[count];
+        offsets = new long[count];
+        compressedLengths = new int[count];
+        lengths = new int[count];
+        checksums = new int[count];
+        for (int i = 0; i < count; i++) {
+            names[i] = in.readUTF();
+            offsets[i] = in.readLong();
+            compressedLengths[i] = in.readInt();
+            lengths[i] = in.readInt();
+            checksums[i] = in.readInt();
+            if (offsets[i] < 0 || compressedLengths[i] < 0 || lengths[i] < MazeFile.HEADER_SIZE
+                    || offsets[i] + compressedLengths[i] > channel.size()) {
+                throw new IOException("Level " + names[i] + " lies outside the level pack");
+            }
+        }
+        prefetcher = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "level-prefetch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Opens a level pack. Only the table of contents is read.
+     * @param path The path of the pack file.
+     * @return The opened pack.
+     * @throws IOException If the file cannot be read or is not a valid level pack.
+     */
+    public static LevelPack open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new LevelPack(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a level pack.
+     * @param path The path of the pack file. An existing file is overwritten.
+     * @param names The names of the levels.
+     * @param levels The tiles of the levels, in the same order as their names.
+     * @throws IOException If writing fails.
+     */
+    public static void write(Path path, String[] names, TileStore[] levels) throws IOException {
+        byte[][] compressed = new byte[levels.length][];
+        int[] lengths = new int[levels.length];
+        int[] checksums = new int[levels.length];
+        DataOutputStream toc = new DataOutputStream(OutputStream.nullOutputStream());
+        for (int i = 0; i < levels.length; i++) {
+            ByteArrayOutputStream level = new ByteArrayOutputStream();
+            MazeFile.write(levels[i], level);
+            byte[] bytes = level.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            lengths[i] = bytes.length;
+            checksums[i] = (int) crc.getValue();
+
+            ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+            try (DeflaterOutputStream out = new DeflaterOutputStream(deflated, new Deflater(Deflater.BEST_COMPRESSION))) {
+                out.write(bytes);
+            }
+            compressed[i] = deflated.toByteArray();
+            toc.writeUTF(names[i]);
+            toc.writeLong(0);
+            toc.writeInt(0);
+            toc.writeInt(0);
+            toc.writeInt(0);
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path.toFile())))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(levels.length);
+            long offset = out.size() + toc.size();
+            for (int i = 0; i < levels.length; i++) {
+                out.writeUTF(names[i]);
+                out.writeLong(offset);
+                out.writeInt(compressed[i].length);
+                out.writeInt(lengths[i]);
+                out.writeInt(checksums[i]);
+                offset += compressed[i].length;
+            }
+            for (byte[] level : compressed) {
+                out.write(level);
+            }
+        }
+    }
+
+    /**
+     * Loads one level of the pack and starts decompressing the next one in the background, so that it is ready
+     * when the player gets there.
+     * @param index The index of the level.
+     * @return A new store containing the tiles of the level.
+     * @throws IOException If the level cannot be read or its checksum does not match.
+     */
+    public synchronized TileStore load(int index) throws IOException {
+        TileStore level;
+        if (index == prefetchedIndex) {
+            level = await(prefetched);
+        } else {
+            if (prefetched != null) {
+                prefetched.cancel(false);
+            }
+            level = read(index);
+        }
+        prefetched = null;
+        prefetchedIndex = -1;
+        if (index + 1 < names.length) {
+            int next = index + 1;
+            prefetched = prefetcher.submit(() -> read(next));
+            prefetchedIndex = next;
+        }
+        return level;
+    }
+
+    /**
+     * Waits for a level that is being prefetched.
+     * @param future The pending level.
+     * @return The level.
+     * @throws IOException If reading the level failed or the thread was interrupted.
+     */
+    private static TileStore await(Future<TileStore> future) throws IOException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading level");
+        }
+    }
+
+    /**
+     * Reads, decompresses and verifies one level.
+     * @param index The index of the level.
+     * @return A new store containing the tiles of the level.
+     * @throws IOException If the level cannot be read or its checksum does not match.
+     */
+    private TileStore read(int index) throws IOException {
+        ByteBuffer compressed = ByteBuffer.allocate(compressedLengths[index]);
+        while (compressed.hasRemaining()) {
+            if (channel.read(compressed, offsets[index] + compressed.position()) < 0) {
+                throw new EOFException("Level " + names[index] + " is truncated");
+            }
+        }
+
+        byte[] bytes = new byte[lengths[index]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            int length = 0;
+            while (length < bytes.length && !inflater.finished()) {
+                int inflated = inflater.inflate(bytes, length, bytes.length - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != bytes.length) {
+                throw new IOException("Level " + names[index] + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Level " + names[index] + " is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        if ((int) crc.getValue() != checksums[index]) {
+            throw new IOException("Level " + names[index] + " checksum mismatch");
+        }
+        MazeFile.Header header = MazeFile.decodeHeader(ByteBuffer.wrap(bytes));
+        TileStore store = Maze.createStore(header.width(), header.height());
+        MazeFile.readBody(new ByteArrayInputStream(bytes, MazeFile.HEADER_SIZE, bytes.length - MazeFile.HEADER_SIZE),
+                header, store);
+        return store;
+    }
+
+    /**
+     * Returns the number of levels in the pack.
+     * @return The number of levels.
+     */
+    public int getLevelCount() {
+        return names.length;
+    }
+
+    /**
+     * Returns the name of a level.
+     * @param index The index of the level.
+     * @return The name of the level.
+     */
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /**
+     * Finds a level by its name.
+     * @param name The name of the level.
+     * @return The index of the level, or -1 if the pack contains no level with that name.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stops prefetching and closes the pack file.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        prefetcher.shutdownNow();
+        channel.close();
+    }
+
+    /**
+     * Builds a level pack from maze files. Each level is named after its file without the extension.
+     * Usage: LevelPack &lt;pack file&gt; &lt;maze files...&gt;
+     * @param args The path of the pack to write, followed by the maze files to include.
+     * @throws IOException If writing the pack fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: LevelPack <pack file> <maze files...>");
+            return;
+        }
+        String[] names = new String[args.length - 1];
+        TileStore[] levels = new TileStore[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            String name = Path.of(args[i]).getFileName().toString();
+            names[i - 1] = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
+            levels[i - 1] = Maze.readFile(args[i], 0);
+        }
+        write(Path.of(args[0]), names, levels);
+    }
+}
@@ -0,0 +1,212 @@
+package de.tum.cit.fop.maze;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * A tile store kept outside the Java heap in a memory-mapped file, for mazes too large to hold in memory. The file
+ * is an uncompressed binary maze file, see {@link MazeFile}: a small header followed by one byte per tile in
+ * row-major order. The operating system pages tiles in on demand, so opening even a huge maze only costs mapping
+ * the file and checking its header. A checksum at the end of the file is only compared with the tiles when
+ * {@link #verify()} is called, since that reads every tile. Stores opened read-only can be layered under a
+ * {@link ChunkedTileStore}, which copies only the chunks that are changed during the game.
+ */
+public class MappedTileStore implements TileStore, Closeable {
+    private static final int HEADER_SIZE = MazeFile.HEADER_SIZE;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int width;
+    private final int height;
+    private final boolean writable;
+    private boolean hasChecksum;
+    private int storedChecksum;
+
+    /**
+     * Constructor for MappedTileStore. Maps the whole file in segments of at most 1 GiB, since a single mapping
+     * cannot exceed 2 GiB.
+     * @param channel The open channel of the maze file.
+     * @param mode The mapping mode.
+     * @param width The width of the maze stored in the file.
+     * @param height The height of the maze stored in the file.
+     * @throws IOException If the file cannot be mapped.
+     */
+    private MappedTileStore(FileChannel channel, FileChannel.MapMode mode, int width, int height) throws IOException {
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        writable = mode != FileChannel.MapMode.READ_ONLY;
+        long length = HEADER_SIZE + (long) width * height;
+        segments = new MappedByteBuffer[(int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, start, Math.min(length - start, 1L << SEGMENT_SHIFT));
+        }
+    }
+
+    /**
+     * Creates a new maze file and maps it for reading and writing. All tiles of a new file are walls.
+     * @param path The path of the file to create. An existing file is overwritten.
+     * @param width The width of the maze.
+     * @param height The height of the maze.
+     * @return The store backed by the new file.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public static MappedTileStore create(Path path, int width, int height) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            channel.write(MazeFile.encodeHeader(new MazeFile.Header(0, width, height)), 0);
+            channel.write(ByteBuffer.allocate(1), HEADER_SIZE + (long) width * height - 1);
+            return new MappedTileStore(channel, FileChannel.MapMode.READ_WRITE, width, height);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens an existing maze file. Writable stores save every change to the file. Read-only stores throw an
+     * UnsupportedOperationException when written to; the file is closed right after mapping it, since the mapping
+     * stays valid on its own. Only the header is validated; a checksum at the end of the file is read but not
+     * compared with the tiles, see {@link #verify()}.
+     * @param path The path of the maze file.
+     * @param writable Whether the store can be changed.
+     * @return The store backed by the file.
+     * @throws IOException If the file cannot be read, is not an uncompressed binary maze file or is truncated.
+     */
+    public static MappedTileStore open(Path path, boolean writable) throws IOException {
+        FileChannel channel = writable
+                ? FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+            channel.read(buffer, 0);
+            MazeFile.Header header = MazeFile.decodeHeader(buffer.flip());
+            if (header.has(MazeFile.FLAG_RLE)) {
+                throw new IOException(path + " is compressed and cannot be mapped");
+            }
+            int width = header.width();
+            int height = header.height();
+            long length = HEADER_SIZE + (long) width * height;
+            if (channel.size() < length + (header.has(MazeFile.FLAG_CRC) ? 4 : 0)) {
+                throw new IOException(path + " is truncated");
+            }
+            MappedTileStore store = new MappedTileStore(channel,
+                    writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, width, height);
+            if (header.has(MazeFile.FLAG_CRC)) {
+                ByteBuffer stored = ByteBuffer.allocate(4);
+                channel.read(stored, length);
+                store.hasChecksum = true;
+                store.storedChecksum = stored.flip().getInt();
+            }
+            if (!writable) {
+                channel.close();
+            }
+            return store;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Compares the checksum at the end of the file with the tiles, reading every tile once. Files without a
+     * checksum always pass. Meant for tools and tests; opening a maze does not do this.
+     * @throws IOException If the checksum does not match the tiles.
+     */
+    public void verify() throws IOException {
+        if (hasChecksum && storedChecksum != checksum()) {
+            throw new IOException("Maze file checksum mismatch");
+        }
+    }
+
+    /**
+     * Computes the CRC32 of all tiles, in the same way as it is stored at the end of maze files.
+     * @return The checksum of the tiles.
+     */
+    private int checksum() {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < segments.length; i++) {
+            ByteBuffer segment = segments[i].duplicate();
+            if (i == 0) {
+                segment.position(HEADER_SIZE);
+            }
+            crc.update(segment);
+        }
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public int get(int x, int y) {
+        if (!inBounds(x, y)) {
+            return NONE;
+        }
+        long offset = HEADER_SIZE + (long) y * width + x;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    @Override
+    public void set(int x, int y, int value) {
+        if (!writable) {
+            throw new UnsupportedOperationException("Maze file was opened read-only");
+        }
+        if (!inBounds(x, y)) {
+            return;
+        }
+        long offset = HEADER_SIZE + (long) y * width + x;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].put((int) (offset & SEGMENT_MASK), (byte) value);
+    }
+
+    /**
+     * Returns a read-only snapshot of the store. Read-only stores never change and are their own snapshot.
+     * @return A read-only store with the current contents of this store.
+     */
+    @Override
+    public TileStore snapshot() {
+        return writable ? TileStore.super.snapshot() : this;
+    }
+
+    /**
+     * Writes all changes of a writable store to the file.
+     */
+    public void force() {
+        if (!writable) {
+            return;
+        }
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Closes the underlying file. The mapping itself is released once the store is garbage collected.
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Override
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
@@ -1,65 +1,312 @@
 package de.tum.cit.fop.maze;
 
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import java.awt.Point;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.utils.Array;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * The Maze class used to generate, load and render the maze.
  */
 public class Maze {
-    private final Properties mazeProperties;
-    private final Map<Point, Integer> mazeMap;
-    private final Map<Point, Integer> entityMap;
+    private final TileStore tiles;
+    private final TileStore entities;
+    private final TileMask walls;
+    private final TileMask gates;
+    private final boolean[] indexed;
+    private final int indexColumns;
+    private boolean gatesOpen;
+    private final MazeJournal journal;
+    private volatile MazeSnapshot snapshot;
+    private volatile boolean snapshotRequested;
     private Texture texture;
     private Array<TextureRegion> textures;
     private static final int WALL = 0;
     private static final int PATH = 1;
     private static final int[] DX = {-1, 1, 0, 0};
     private static final int[] DY = {0, 0, -1, 1};
+    private static final int REGION_CELLS = 64;
+    // regions derive their seeds from indices starting at 0, so the other stages use negative ones
+    private static final int CONNECT_SEED = -1;
+    private static final int FINISH_SEED = -2;
+    private static final MazeGenerator DEFAULT_GENERATOR = new DepthFirstGenerator();
+    private static final int CHEST = 20;
+    private static final int DISTANCE_BANDS = 4;
+    private static final int SAFE_DISTANCE = 4;
+    private static final int SOLUTION_SHARE = 3;
+    private static final int CHUNKED_THRESHOLD = 256 * 256;
+    private static final int JOURNAL_CAPACITY = 256;
+    private static final int INDEX_SHIFT = 5;
     private final int size;
+    private long seed;
 
     /**
-     * Constructor for Maze, with the name of the properties file from which to load the maze and its size.
-     * @param filename The name of the java properties file from which to load the maze.
+     * Constructor for Maze, with the name of the file from which to load the maze and its size. Both binary maze
+     * files and java properties files are accepted, see {@link MazeFile}. Uncompressed binary files are
+     * memory-mapped instead of being read, see {@link #readFile(String, int)}.
+     * @param filename The name of the file from which to load the maze.
      * @param size The size of the maze.
      */
     public Maze(String filename, int size) {
-        mazeProperties = new Properties();
-        mazeMap = new HashMap<>();
-        entityMap = new HashMap<>();
+        this(readFile(filename, size), size);
+    }
+
+    /**
+     * Constructor for Maze from a generated maze, without going through a file. The array is copied and not
+     * modified, so the same generated maze can be used again, e.g. to restart the game.
+     * @param maze The maze in integer array representation, as returned by generateMaze.
+     * @param size The size of the maze.
+     */
+    public Maze(int[][] maze, int size) {
+        this(copy(arrayStore(maze), maze.length, maze[0].length), size);
+    }
+
+    /**
+     * Constructor for Maze from a generated maze and the seed it was generated from. The seed also determines the
+     * random behaviour of the entities spawned in the maze, see {@link #getSeed()}.
+     * @param maze The maze in integer array representation, as returned by generateMaze.
+     * @param size The size of the maze.
+     * @param seed The seed the maze was generated from.
+     */
+    public Maze(int[][] maze, int size, long seed) {
+        this(maze, size);
+        this.seed = seed;
+    }
+
+    /**
+     * Constructor for Maze from a store holding the tile values as they are saved in maze files. The store becomes
+     * the tile layer of the maze, and entity values are copied out of it into a separate entity layer. The store is
+     * not written to while loading; entity values left in it are read as the tile they stand on, see
+     * {@link #tileType(int)}. Stores without chunks are layered under a {@link ChunkedTileStore}, so that published
+     * snapshots share the unchanged chunks instead of copying the whole maze. The entity layer and the collision
+     * bitsets are filled one chunk at a time when the chunk is first used, see {@link #index(int, int, int, int)}, so
+     * opening a huge maze does not read all of it.
+     * @param source The store containing the maze.
+     * @param size The size of the maze.
+     */
+    public Maze(TileStore source, int size) {
         this.size = size;
-        try {
-            mazeProperties.load(new FileInputStream(filename));
-        } catch (IOException e) {
+        journal = new MazeJournal(JOURNAL_CAPACITY);
+        loadTextures();
+
+        int width = source.getWidth();
+        int height = source.getHeight();
+        tiles = source instanceof ChunkedTileStore ? source : new ChunkedTileStore(source);
+        entities = createStore(width, height);
+        walls = new TileMask(width, height);
+        gates = new TileMask(width, height);
+        indexColumns = (width + (1 << INDEX_SHIFT) - 1) >>> INDEX_SHIFT;
+        indexed = new boolean[indexColumns * ((height + (1 << INDEX_SHIFT) - 1) >>> INDEX_SHIFT)];
+        tiles.compact();
+        snapshot = new MazeSnapshot(tileTypes(tiles.snapshot()), journal.getVersion(), gatesOpen);
+    }
+
+    /**
+     * Opens a maze stored in a memory-mapped tile file, see {@link MappedTileStore}. Tiles are read from the file on
+     * demand, changes made during the game only copy the affected chunks and are not written back to the file.
+     * @param filename The name of the tile file.
+     * @param size The size of the maze.
+     * @return The maze backed by the file.
+     * @throws IOException If the file cannot be opened or is not a valid tile file.
+     */
+    public static Maze openMapped(String filename, int size) throws IOException {
+        return new Maze(new ChunkedTileStore(MappedTileStore.open(Path.of(filename), false)), size);
+    }
+
+    /**
+     * Reads a maze file into a tile store, detecting from its first bytes whether it is a binary maze file or a
+     * java properties file. Uncompressed binary files are memory-mapped rather than copied into memory, so that
+     * loading them only costs mapping the file and validating its header. Their checksum is not verified here,
+     * see {@link MappedTileStore#verify()}.
+     * @param filename The name of the file from which to load the maze.
+     * @param size The minimum size of the maze.
+     * @return A store containing the values of the file, or an empty store if the file cannot be read.
+     */
+    static TileStore readFile(String filename, int size) {
+        try (InputStream in = new BufferedInputStream(new FileInputStream(filename))) {
+            in.mark(MazeFile.HEADER_SIZE);
+            byte[] start = in.readNBytes(MazeFile.HEADER_SIZE);
+            if (!MazeFile.isBinary(start)) {
+                in.reset();
+                return readProperties(in, size);
+            }
+            MazeFile.Header header = MazeFile.decodeHeader(ByteBuffer.wrap(start));
+            if (!header.has(MazeFile.FLAG_RLE)) {
+                return new ChunkedTileStore(MappedTileStore.open(Path.of(filename), false));
+            }
+            TileStore store = createStore(header.width(), header.height());
+            MazeFile.readBody(in, header, store);
+            return store;
+        } catch (FileNotFoundException e) {
             System.out.println("Maze file " + filename + " not found");
-            mazeProperties.put(0,0);
+        } catch (IOException e) {
+            System.out.println("Maze file " + filename + " could not be read: " + e.getMessage());
         }
-        loadTextures();
-        for (String key : mazeProperties.stringPropertyNames()) {
-            String[] coords = key.split(",");
-            int x = Integer.parseInt(coords[0]);
-            int y = Integer.parseInt(coords[1]);
+        return createStore(size, size);
+    }
 
-            if (Integer.parseInt(mazeProperties.getProperty(key)) < 10) {
-                mazeMap.put(new Point(x, y), Integer.parseInt(mazeProperties.getProperty(key)));
-            } else {
-                if (Integer.parseInt(mazeProperties.getProperty(key)) != 12) {
-                    mazeMap.put(new Point(x, y), PATH);
-                } else {
-                    mazeMap.put(new Point(x, y), 12);
+    /**
+     * Reads a maze from a java properties file into a tile store, see {@link PropertiesMazeReader}.
+     * @param in The stream containing the properties file.
+     * @param size The minimum size of the maze.
+     * @return A store containing the values of the file, large enough to hold all of them.
+     * @throws IOException If reading from the stream fails or the file is malformed.
+     */
+    private static TileStore readProperties(InputStream in, int size) throws IOException {
+        TileStore[] store = {createStore(size, size)};
+        PropertiesMazeReader.read(in, (x, y, value) -> {
+            TileStore current = store[0];
+            if (x >= current.getWidth() || y >= current.getHeight()) {
+                store[0] = copy(current, Math.max(current.getWidth(), x + 1), Math.max(current.getHeight(), y + 1));
+            }
+            store[0].set(x, y, value);
+        });
+        return store[0];
+    }
+
+    /**
+     * Copies a tile store into a new store of the same or a larger size.
+     * @param store The store to copy.
+     * @param width The width of the new store.
+     * @param height The height of the new store.
+     * @return The new store containing the tiles of the old one.
+     */
+    private static TileStore copy(TileStore store, int width, int height) {
+        TileStore resized = createStore(width, height);
+        for (int y = 0; y < store.getHeight(); y++) {
+            for (int x = 0; x < store.getWidth(); x++) {
+                resized.set(x, y, store.get(x, y));
+            }
+        }
+        return resized;
+    }
+
+    /**
+     * Creates the store for one layer of the maze. Large mazes are split into chunks so that memory scales with the
+     * mixed regions of the maze rather than its area.
+     * @param width The width of the maze.
+     * @param height The height of the maze.
+     * @return An empty tile store of the given size.
+     */
+    static TileStore createStore(int width, int height) {
+        if ((long) width * height > CHUNKED_THRESHOLD) {
+            return new ChunkedTileStore(width, height);
+        }
+        return new TileGrid(width, height);
+    }
+
+    /**
+     * Converts a value as saved in maze files into a tile type. Entities other than the exit stand on path tiles.
+     * @param value The saved value.
+     * @return The tile type at a position with the given value.
+     */
+    static int tileType(int value) {
+        return value >= 10 && value != 12 ? PATH : value;
+    }
+
+    /**
+     * Wraps a store holding values as saved in maze files in a read-only store of tile types.
+     * @param source The store with the saved values.
+     * @return A read-only view of the store converting every value with {@link #tileType(int)}.
+     */
+    private static TileStore tileTypes(TileStore source) {
+        return new TileStore() {
+            @Override
+            public int get(int x, int y) {
+                return tileType(source.get(x, y));
+            }
+
+            @Override
+            public void set(int x, int y, int value) {
+                throw new UnsupportedOperationException("Tiles must be changed through Maze.setTile");
+            }
+
+            @Override
+            public int getWidth() {
+                return source.getWidth();
+            }
+
+            @Override
+            public int getHeight() {
+                return source.getHeight();
+            }
+
+            @Override
+            public TileStore snapshot() {
+                return tileTypes(source.snapshot());
+            }
+
+            @Override
+            public void forEachChunk(int x0, int y0, int x1, int y1, ChunkVisitor visitor) {
+                source.forEachChunk(x0, y0, x1, y1, (chunkX0, chunkY0, chunkX1, chunkY1, uniform) ->
+                        visitor.visit(chunkX0, chunkY0, chunkX1, chunkY1, uniform == MIXED ? MIXED : tileType(uniform)));
+            }
+        };
+    }
+
+    /**
+     * Makes sure the entity layer and the collision bitsets are filled for all chunks overlapping a rectangle of
+     * tiles, copying the entities of every chunk not used before out of the tile layer.
+     * @param x0 The smallest x position of the rectangle, inclusive.
+     * @param y0 The smallest y position of the rectangle, inclusive.
+     * @param x1 The largest x position of the rectangle, inclusive.
+     * @param y1 The largest y position of the rectangle, inclusive.
+     */
+    private void index(int x0, int y0, int x1, int y1) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, tiles.getWidth() - 1);
+        y1 = Math.min(y1, tiles.getHeight() - 1);
+        for (int chunkY = y0 >>> INDEX_SHIFT; chunkY <= y1 >>> INDEX_SHIFT && y0 <= y1; chunkY++) {
+            for (int chunkX = x0 >>> INDEX_SHIFT; chunkX <= x1 >>> INDEX_SHIFT && x0 <= x1; chunkX++) {
+                if (indexed[chunkY * indexColumns + chunkX]) {
+                    continue;
+                }
+                indexed[chunkY * indexColumns + chunkX] = true;
+                int endX = Math.min((chunkX + 1) << INDEX_SHIFT, tiles.getWidth());
+                int endY = Math.min((chunkY + 1) << INDEX_SHIFT, tiles.getHeight());
+                for (int y = chunkY << INDEX_SHIFT; y < endY; y++) {
+                    for (int x = chunkX << INDEX_SHIFT; x < endX; x++) {
+                        int value = tiles.get(x, y);
+                        if (value >= 10) {
+                            entities.set(x, y, value);
+                        }
+                        updateMasks(x, y, tileType(value));
+                    }
                 }
-                entityMap.put(new Point(x, y), Integer.parseInt(mazeProperties.getProperty(key)));
             }
         }
     }
 
+    /**
+     * Fills the entity layer and the collision bitsets for the whole maze.
+     */
+    private void indexAll() {
+        index(0, 0, tiles.getWidth() - 1, tiles.getHeight() - 1);
+    }
+
+    /**
+     * Updates the collision bitsets for a single tile.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param type The tile type at the position.
+     */
+    private void updateMasks(int x, int y, int type) {
+        walls.set(x, y, type == WALL);
+        gates.set(x, y, type == 2 && !gatesOpen);
+    }
+
     /**
      * Loads the textures for the maze tiles.
      */
@@ -77,63 +324,314 @@ private void loadTextures() {
     }
 
     /**
-     * Renders the maze.
+     * Renders the part of the maze that is visible to the camera. Only the chunks overlapping the view are visited,
+     * and chunks without any tiles are skipped entirely.
      * @param batch The SpriteBatch in which to render the maze.
+     * @param camera The camera whose view determines which tiles are drawn.
      */
-    public void draw(SpriteBatch batch) {
-        for (Point point : mazeMap.keySet()) {
-            if (mazeMap.get(point) <= 3) {
-                batch.draw(textures.get(mazeMap.get(point)), point.x * GameScreen.tileSize, point.y * GameScreen.tileSize, GameScreen.tileSize, GameScreen.tileSize);
-            } else {
-                batch.draw(textures.get(textures.size - 1), point.x * GameScreen.tileSize, point.y * GameScreen.tileSize, GameScreen.tileSize, GameScreen.tileSize);
+    public void draw(SpriteBatch batch, OrthographicCamera camera) {
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+        int x0 = MathUtils.floor((camera.position.x - halfWidth) / GameScreen.tileSize) - 1;
+        int y0 = MathUtils.floor((camera.position.y - halfHeight) / GameScreen.tileSize) - 1;
+        int x1 = MathUtils.ceil((camera.position.x + halfWidth) / GameScreen.tileSize) + 1;
+        int y1 = MathUtils.ceil((camera.position.y + halfHeight) / GameScreen.tileSize) + 1;
+
+        tiles.forEachChunk(x0, y0, x1, y1, (chunkX0, chunkY0, chunkX1, chunkY1, uniform) -> {
+            if (uniform == TileStore.NONE) {
+                return;
             }
-        }
+            for (int y = chunkY0; y <= chunkY1; y++) {
+                for (int x = chunkX0; x <= chunkX1; x++) {
+                    int tile = tileType(tiles.get(x, y));
+                    if (tile == TileStore.NONE) {
+                        continue;
+                    }
+                    TextureRegion region = tile <= 3 ? textures.get(tile) : textures.get(textures.size - 1);
+                    batch.draw(region, x * GameScreen.tileSize, y * GameScreen.tileSize, GameScreen.tileSize, GameScreen.tileSize);
+                }
+            }
+        });
     }
 
     /**
-     * Generates a new maze.
+     * Generates a new maze, carving its paths with a depth-first search.
      * @param rows The number of rows of the maze.
      * @param cols The number of columns of the maze.
      * @param difficulty The difficulty modifier of the maze.
      * @return The maze in integer array representation.
      */
     public static int[][] generateMaze(int rows, int cols, float difficulty) {
+        return generateMaze(rows, cols, difficulty, DEFAULT_GENERATOR);
+    }
+
+    /**
+     * Generates a new maze from a random seed.
+     * @param rows The number of rows of the maze.
+     * @param cols The number of columns of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @param generator The algorithm carving the paths of the maze.
+     * @return The maze in integer array representation.
+     */
+    public static int[][] generateMaze(int rows, int cols, float difficulty, MazeGenerator generator) {
+        return generateMaze(rows, cols, difficulty, generator, new Random().nextLong());
+    }
+
+    /**
+     * Generates a new maze from a seed, carving its paths with a depth-first search. The same seed, size and
+     * difficulty always generate the same maze.
+     * @param rows The number of rows of the maze.
+     * @param cols The number of columns of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @param seed The seed the maze is generated from.
+     * @return The maze in integer array representation.
+     */
+    public static int[][] generateMaze(int rows, int cols, float difficulty, long seed) {
+        return generateMaze(rows, cols, difficulty, DEFAULT_GENERATOR, seed);
+    }
+
+    /**
+     * Generates a new maze from a seed.
+     * @param rows The number of rows of the maze.
+     * @param cols The number of columns of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @param generator The algorithm carving the paths of the maze.
+     * @param seed The seed the maze is generated from.
+     * @return The maze in integer array representation.
+     */
+    public static int[][] generateMaze(int rows, int cols, float difficulty, MazeGenerator generator, long seed) {
         int[][] maze = new int[rows][cols];
 
         for (int[] row : maze) {
             Arrays.fill(row, WALL);
         }
 
-        Random random = new Random();
-        int startX = random.nextInt(rows / 2) * 2 + 1;
-        int startY = random.nextInt(cols / 2) * 2 + 1;
+        Random random = new Random(seed);
+        generator.carve(maze, random);
+        finishMaze(maze, random, difficulty);
+        return maze;
+    }
 
-        dfs(maze, startX, startY, random);
+    /**
+     * Generates a new maze like {@link #generateMaze(int, int, float)}, but carves the paths in parallel. The maze
+     * is split into regions of REGION_CELLS by REGION_CELLS cells, each region is carved on its own by a task of the
+     * given pool, and the regions are then joined by one doorway for every edge of a random spanning tree over the
+     * regions, so that the carved paths still form a perfect maze connecting every cell. Every region draws from its
+     * own Random derived from the seed, which makes the result depend only on the seed and not on the number of
+     * threads or the order in which the regions are carved. Openings, exits and entities are added afterwards on a
+     * single thread, exactly like in generateMaze.
+     * @param rows The number of rows of the maze.
+     * @param cols The number of columns of the maze.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze is generated from.
+     * @param pool The pool to carve the regions in.
+     * @return The generated maze in integer array representation.
+     */
+    public static int[][] generateMazeParallel(int rows, int cols, float difficulty, long seed, ForkJoinPool pool) {
+        return generateMazeParallel(rows, cols, difficulty, seed, pool, DEFAULT_GENERATOR);
+    }
 
-        for (int i = 1; i < rows - 1; i++) {
-            for (int j = 1; j < cols - 1; j++) {
-                if (maze[i][j] == WALL && random.nextInt(8) == 0) {
-                    setArea(maze, j, i, 3, PATH);
-                }
+    /**
+     * Generates a new maze in parallel like {@link #generateMazeParallel(int, int, float, long, ForkJoinPool)}, but
+     * carves the regions with a given algorithm.
+     * @param rows The number of rows of the maze.
+     * @param cols The number of columns of the maze.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze is generated from.
+     * @param pool The pool to carve the regions in.
+     * @param generator The algorithm carving the paths of every region.
+     * @return The generated maze in integer array representation.
+     */
+    public static int[][] generateMazeParallel(int rows, int cols, float difficulty, long seed, ForkJoinPool pool,
+                                               MazeGenerator generator) {
+        int[][] maze = new int[rows][cols];
+        for (int[] row : maze) {
+            Arrays.fill(row, WALL);
+        }
+        carveParallel(maze, seed, pool, generator);
+        finishMaze(maze, new Random(deriveSeed(seed, FINISH_SEED)), difficulty);
+        return maze;
+    }
+
+    /**
+     * Carves the paths of a maze in parallel, see {@link #generateMazeParallel(int, int, float, long, ForkJoinPool)}.
+     * Cells lie at odd positions and never in the last row or column.
+     * @param maze An empty maze consisting only of walls.
+     * @param seed The seed the paths are carved from.
+     * @param pool The pool to carve the regions in.
+     * @param generator The algorithm carving the paths of every region.
+     */
+    static void carveParallel(int[][] maze, long seed, ForkJoinPool pool, MazeGenerator generator) {
+        int cellRows = (maze.length - 1) / 2;
+        int cellCols = (maze[0].length - 1) / 2;
+        if (cellRows <= 0 || cellCols <= 0) {
+            return;
+        }
+        int regionRows = (cellRows + REGION_CELLS - 1) / REGION_CELLS;
+        int regionCols = (cellCols + REGION_CELLS - 1) / REGION_CELLS;
+        pool.invoke(new CarveTask(maze, seed, generator, regionCols, cellRows, cellCols, 0, regionRows * regionCols));
+        connectRegions(maze, new Random(deriveSeed(seed, CONNECT_SEED)), regionRows, regionCols, cellRows, cellCols);
+    }
+
+    /**
+     * Task carving a range of regions of a maze, split in halves until a single region is left.
+     */
+    private static class CarveTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[][] maze;
+        private final long seed;
+        private final MazeGenerator generator;
+        private final int regionCols;
+        private final int cellRows;
+        private final int cellCols;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor for CarveTask.
+         * @param maze The maze to carve into.
+         * @param seed The seed of the maze.
+         * @param generator The algorithm carving the paths of every region.
+         * @param regionCols The number of regions per row.
+         * @param cellRows The number of cell rows of the maze.
+         * @param cellCols The number of cell columns of the maze.
+         * @param from The index of the first region to carve, inclusive.
+         * @param to The index of the last region to carve, exclusive.
+         */
+        CarveTask(int[][] maze, long seed, MazeGenerator generator, int regionCols, int cellRows, int cellCols,
+                  int from, int to) {
+            this.maze = maze;
+            this.seed = seed;
+            this.generator = generator;
+            this.regionCols = regionCols;
+            this.cellRows = cellRows;
+            this.cellCols = cellCols;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new CarveTask(maze, seed, generator, regionCols, cellRows, cellCols, from, middle),
+                        new CarveTask(maze, seed, generator, regionCols, cellRows, cellCols, middle, to));
+                return;
             }
+            int minCellX = (from % regionCols) * REGION_CELLS;
+            int minCellY = (from / regionCols) * REGION_CELLS;
+            int maxCellX = Math.min(minCellX + REGION_CELLS, cellCols) - 1;
+            int maxCellY = Math.min(minCellY + REGION_CELLS, cellRows) - 1;
+            generator.carve(maze, minCellX * 2 + 1, minCellY * 2 + 1, maxCellX * 2 + 1, maxCellY * 2 + 1,
+                    new Random(deriveSeed(seed, from)));
         }
+    }
 
-        for (int i = 1; i < rows - 1; i++) {
-            for (int j = 1; j < cols - 1; j++) {
-                if (maze[i][j] == WALL && countSurroundingTiles(maze, j, i, WALL) == 0) {
-                    maze[i][j] = PATH;
+    /**
+     * Derives the seed of a part of the maze, such as a region or an entity, from the seed of the maze, using the
+     * SplitMix64 mixing function so that neighbouring parts get unrelated random sequences.
+     * @param seed The seed of the maze.
+     * @param index The index of the part.
+     * @return The seed of the part.
+     */
+    static long deriveSeed(long seed, long index) {
+        long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Joins carved regions by opening one doorway for every edge of a random spanning tree over the regions. The
+     * tree is built with a depth-first search over the regions.
+     * @param maze The maze whose regions have been carved.
+     * @param random A Random instance to select the tree and the positions of the doorways.
+     * @param regionRows The number of region rows.
+     * @param regionCols The number of regions per row.
+     * @param cellRows The number of cell rows of the maze.
+     * @param cellCols The number of cell columns of the maze.
+     */
+    private static void connectRegions(int[][] maze, Random random, int regionRows, int regionCols, int cellRows,
+                                       int cellCols) {
+        boolean[] visited = new boolean[regionRows * regionCols];
+        int[] stack = new int[visited.length];
+        int size = 0;
+        int[] directions = new int[4];
+        stack[size++] = 0;
+        visited[0] = true;
+
+        while (size > 0) {
+            int current = stack[size - 1];
+            int regionX = current % regionCols;
+            int regionY = current / regionCols;
+
+            for (int i = 0; i < 4; i++) {
+                directions[i] = i;
+            }
+            for (int i = 3; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = directions[i];
+                directions[i] = directions[j];
+                directions[j] = swap;
+            }
+
+            boolean foundNextRegion = false;
+
+            for (int dir : directions) {
+                int nx = regionX + DX[dir];
+                int ny = regionY + DY[dir];
+                if (nx < 0 || ny < 0 || nx >= regionCols || ny >= regionRows || visited[ny * regionCols + nx]) {
+                    continue;
                 }
-                if (maze[i][j] == WALL && countSurroundingTiles(maze, j, i, WALL) == 1
-                        && countSurroundingTiles(maze, j - 1, i, WALL) == 1) {
-                    maze[i][j] = PATH;
-                    maze[i][j - 1] = PATH;
+                // the doorway lies on the shared border, at a random cell along it
+                if (DX[dir] != 0) {
+                    int minCellY = regionY * REGION_CELLS;
+                    int cellY = minCellY + random.nextInt(Math.min(minCellY + REGION_CELLS, cellRows) - minCellY);
+                    int borderX = Math.max(regionX, nx) * REGION_CELLS * 2;
+                    maze[cellY * 2 + 1][borderX] = PATH;
+                } else {
+                    int minCellX = regionX * REGION_CELLS;
+                    int cellX = minCellX + random.nextInt(Math.min(minCellX + REGION_CELLS, cellCols) - minCellX);
+                    int borderY = Math.max(regionY, ny) * REGION_CELLS * 2;
+                    maze[borderY][cellX * 2 + 1] = PATH;
                 }
-                if (maze[i][j] == WALL && countSurroundingTiles(maze, j, i, WALL) == 1
-                    && countSurroundingTiles(maze, j, i - 1, WALL) == 1) {
-                    maze[i][j] = PATH;
-                    maze[i - 1][j] = PATH;
+                visited[ny * regionCols + nx] = true;
+                stack[size++] = ny * regionCols + nx;
+                foundNextRegion = true;
+                break;
+            }
+
+            if (!foundNextRegion) {
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Turns carved paths into a playable maze: adds random openings, removes thin walls, closes the border and
+     * places the entrance, the exit and the entities.
+     * @param maze The maze with carved paths.
+     * @param random A Random instance to randomly place openings, exits and entities.
+     * @param difficulty The difficulty modifier of the game.
+     */
+    private static void finishMaze(int[][] maze, Random random, float difficulty) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+
+        // random openings in row i only change rows i - 1 to i + 1, so the clean-up of row i - 2, which reads up to
+        // row i - 1, already sees the same maze as it would after a separate pass
+        NeighbourCounts walls = new NeighbourCounts(maze, WALL);
+        for (int i = 1; i < rows + 1; i++) {
+            if (i < rows - 1) {
+                for (int j = 1; j < cols - 1; j++) {
+                    if (maze[i][j] == WALL && random.nextInt(8) == 0) {
+                        setArea(maze, walls, j, i, 3, PATH);
+                    }
                 }
             }
+            if (i >= 3 && i - 2 < rows - 1) {
+                removeThinWalls(maze, walls, i - 2);
+            }
         }
 
         Arrays.fill(maze[rows - 1], WALL);
@@ -143,92 +641,454 @@ && countSurroundingTiles(maze, j, i - 1, WALL) == 1) {
             maze[i][cols - 1] = WALL;
         }
 
-        createEntrance(maze, random);
-        createExit(maze, random);
-        createEntities(maze, random, difficulty);
+        // the maze is repaired before the entities are placed, so that they are measured from the final entrance and
+        // the key is always put where the player can reach it
+        long[] entranceAndExit = createEntranceAndExit(maze, random);
+        ensureSolvable(maze, entranceAndExit[0], entranceAndExit[1]);
+        createEntities(maze, random, difficulty, entranceAndExit[0]);
+    }
 
-        return maze;
+    /**
+     * Removes walls in a row of the maze that stand alone or form pieces only two tiles long.
+     * @param maze The maze to modify.
+     * @param walls The wall counts of the maze.
+     * @param i The row to process.
+     */
+    private static void removeThinWalls(int[][] maze, NeighbourCounts walls, int i) {
+        for (int j = 1; j < maze[i].length - 1; j++) {
+            if (maze[i][j] == WALL && walls.get(j, i) == 0) {
+                walls.set(j, i, PATH);
+            }
+            if (maze[i][j] == WALL && walls.get(j, i) == 1 && walls.get(j - 1, i) == 1) {
+                walls.set(j, i, PATH);
+                walls.set(j - 1, i, PATH);
+            }
+            if (maze[i][j] == WALL && walls.get(j, i) == 1 && walls.get(j, i - 1) == 1) {
+                walls.set(j, i, PATH);
+                walls.set(j, i - 1, PATH);
+            }
+        }
     }
 
     /**
-     * Adds entities such as traps and enemies to the maze.
+     * Adds entities such as traps and enemies to the maze. The same seed always places the same entities.
+     * @param maze The maze to modify.
+     * @param seed The seed the entities are placed from.
+     * @param difficulty The difficulty modifier which determines the number of traps and enemies.
+     */
+    public static void createEntities(int[][] maze, long seed, float difficulty) {
+        createEntities(maze, new Random(seed), difficulty);
+    }
+
+    /**
+     * Adds entities such as traps and enemies to the maze, measuring distances from its entrance, or from the first
+     * path tile if it has none.
      * @param maze The maze to modify.
      * @param random A Random instance for randomness.
      * @param difficulty The difficulty modifier which determines the number of traps and enemies.
      */
     public static void createEntities(int[][] maze, Random random, float difficulty) {
-        List<Point> chests = new ArrayList<>();
-
+        long entrance = -1;
         for (int i = 0; i < maze.length; i++) {
             for (int j = 0; j < maze[i].length; j++) {
-                if (maze[i][j] == PATH && countSurroundingTiles(maze, j, i, WALL) >= 7 && random.nextInt(4) == 0) {
-                    int chestType = 20 + random.nextInt(4);
-                    maze[i][j] = chestType; //TreasureChest
-                    chests.add(new Point(j, i));
+                if (maze[i][j] == 4 || entrance < 0 && maze[i][j] == PATH) {
+                    entrance = TileCoord.of(j, i);
                 }
-                if (maze[i][j] == PATH && random.nextInt((int) (300 / difficulty)) == 0) {
-                    maze[i][j] = 11; //Enemy
-                }
-                if (maze[i][j] == PATH && ((inBounds(maze, j - 1, i) && maze[i][j - 1] == WALL
-                        && inBounds(maze, j + 1, i) && maze[i][j + 1] == WALL)
-                        || (inBounds(maze, j, i - 1) && maze[i - 1][j] == WALL
-                        && inBounds(maze, j, i + 1) && maze[i + 1][j] == WALL))
-                        && random.nextInt((int) (10 / difficulty)) == 0) {
-                    maze[i][j] = 13; // LaserTrap
+            }
+        }
+        if (entrance >= 0) {
+            createEntities(maze, random, difficulty, entrance);
+        }
+    }
+
+    /**
+     * Adds entities such as traps and enemies to the maze. A breadth-first search from the entrance measures how far
+     * the player has to walk to every tile, and the reachable tiles are collected in lists ordered by that distance.
+     * The key chest is put into one of the dead ends farthest from the entrance, or onto the farthest path tile if
+     * there are no dead ends, and the number of each entity
+     * follows from the number of tiles it can stand on. Hazards stay away from the entrance and get denser the
+     * farther a distance band is from it, and about a third of them are put on the way from the entrance to the key
+     * chest and on to the exit, so that the player has to pass them.
+     * @param maze The maze to modify.
+     * @param random A Random instance for randomness.
+     * @param difficulty The difficulty modifier which determines the number of traps and enemies.
+     * @param entrance The packed position of the tile to measure distances from, see {@link TileCoord}.
+     */
+    private static void createEntities(int[][] maze, Random random, float difficulty, long entrance) {
+        int cols = maze[0].length;
+        int[] distance = new int[maze.length * cols];
+        int[] order = new int[maze.length * cols];
+        int reached = distanceField(maze, TileCoord.y(entrance) * cols + TileCoord.x(entrance), distance, order);
+        int maxDistance = distance[order[reached - 1]];
+
+        // entities only replace path tiles, so the wall counts stay valid while they are placed
+        NeighbourCounts walls = new NeighbourCounts(maze, WALL);
+        int[] deadEnds = new int[reached];
+        int deadEndCount = 0;
+        int[] corridors = new int[reached];
+        int corridorCount = 0;
+        int pathCount = 0;
+        int exit = -1;
+        for (int k = 0; k < reached; k++) {
+            int i = order[k] / cols;
+            int j = order[k] % cols;
+            if (maze[i][j] == 12) {
+                exit = order[k];
+            }
+            if (maze[i][j] != PATH) {
+                continue;
+            }
+            pathCount++;
+            if (walls.get(j, i) >= 7) {
+                deadEnds[deadEndCount++] = order[k];
+            }
+            if ((inBounds(maze, j - 1, i) && maze[i][j - 1] == WALL
+                    && inBounds(maze, j + 1, i) && maze[i][j + 1] == WALL)
+                    || (inBounds(maze, j, i - 1) && maze[i - 1][j] == WALL
+                    && inBounds(maze, j, i + 1) && maze[i + 1][j] == WALL)) {
+                corridors[corridorCount++] = order[k];
+            }
+        }
+
+        boolean[] solution = new boolean[maze.length * cols];
+        int chests = expectedCount(random, deadEndCount / 4.0);
+        if (deadEndCount > 0) {
+            int far = firstAtDistance(deadEnds, deadEndCount, distance,
+                    maxDistance * (DISTANCE_BANDS - 1) / DISTANCE_BANDS);
+            if (far == deadEndCount) {
+                far = 0;
+            }
+            int key = deadEnds[far + random.nextInt(deadEndCount - far)];
+            maze[key / cols][key % cols] = 24;
+            markSolution(distance, cols, key, solution);
+            chests--;
+        } else {
+            for (int k = reached - 1; k > 0; k--) {
+                if (maze[order[k] / cols][order[k] % cols] == PATH) {
+                    maze[order[k] / cols][order[k] % cols] = 24;
+                    markSolution(distance, cols, order[k], solution);
+                    break;
                 }
-                if (maze[i][j] == PATH && random.nextInt((int) (150 / difficulty)) == 0) {
-                    maze[i][j] = 14; // spike trap
+            }
+        }
+        if (exit >= 0) {
+            markSolution(distance, cols, exit, solution);
+        }
+
+        int[] corridorBands = distanceBands(corridors, corridorCount, distance, maxDistance);
+        int[] pathBands = distanceBands(order, reached, distance, maxDistance);
+        place(maze, random, deadEnds, 0, deadEndCount, null, chests, CHEST); //TreasureChest
+        placeHazards(maze, random, corridors, corridorBands, solution,
+                expectedCount(random, corridorCount * difficulty / 10.0), 13); // LaserTrap
+        placeHazards(maze, random, order, pathBands, solution,
+                expectedCount(random, pathCount * difficulty / 300.0), 11); //Enemy
+        placeHazards(maze, random, order, pathBands, solution,
+                expectedCount(random, pathCount * difficulty / 150.0), 14); // spike trap
+        place(maze, random, order, 0, reached, null,
+                expectedCount(random, pathCount / (150.0 * difficulty)), 15); // orb
+    }
+
+    /**
+     * Measures the walking distance from a tile to every tile of the maze that is not a wall, with a breadth-first
+     * search over tile indices (y * width + x).
+     * @param maze The maze to search.
+     * @param start The index of the tile to start from.
+     * @param distance Filled with the distance of every tile, or -1 for tiles that cannot be reached.
+     * @param order Filled with the indices of the reached tiles, ordered by their distance.
+     * @return The number of reached tiles.
+     */
+    private static int distanceField(int[][] maze, int start, int[] distance, int[] order) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        Arrays.fill(distance, -1);
+        distance[start] = 0;
+        order[0] = start;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int current = order[head];
+            int x = current % cols;
+            int y = current / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (nx >= 0 && ny >= 0 && nx < cols && ny < rows && maze[ny][nx] != WALL
+                        && distance[ny * cols + nx] < 0) {
+                    distance[ny * cols + nx] = distance[current] + 1;
+                    order[tail++] = ny * cols + nx;
                 }
-                if (maze[i][j] == PATH && random.nextInt((int) (150 * difficulty)) == 0) {
-                    maze[i][j] = 15; // orb
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * Marks the shortest way from a tile back to the start of a distance field, by always stepping to a neighbour
+     * one tile closer to the start.
+     * @param distance The distance field, see {@link #distanceField(int[][], int, int[], int[])}.
+     * @param cols The width of the maze.
+     * @param tile The index of the reachable tile to start from.
+     * @param solution The marks of the tiles on the way, set for every tile passed.
+     */
+    private static void markSolution(int[] distance, int cols, int tile, boolean[] solution) {
+        while (!solution[tile]) {
+            solution[tile] = true;
+            int x = tile % cols;
+            int y = tile / cols;
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                int next = ny * cols + nx;
+                if (nx >= 0 && ny >= 0 && nx < cols && next < distance.length && distance[next] >= 0
+                        && distance[next] == distance[tile] - 1) {
+                    tile = next;
+                    break;
                 }
             }
         }
-        Point keyChest = chests.get(random.nextInt(chests.size()));
-        maze[keyChest.y][keyChest.x] = 24;
     }
 
     /**
-     * Randomly places the entrance where the player will start the game.
+     * Finds the first tile of a list ordered by distance that is at least a given distance away.
+     * @param tiles The tile indices, ordered by distance.
+     * @param count The number of tiles in the list.
+     * @param distance The distance field the tiles are ordered by.
+     * @param minDistance The distance to look for.
+     * @return The position of the first such tile in the list, or count if there is none.
+     */
+    private static int firstAtDistance(int[] tiles, int count, int[] distance, int minDistance) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distance[tiles[middle]] < minDistance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Splits a list of tiles ordered by distance into bands of equal distance ranges, leaving out the tiles closer
+     * to the entrance than the safe distance.
+     * @param tiles The tile indices, ordered by distance.
+     * @param count The number of tiles in the list.
+     * @param distance The distance field the tiles are ordered by.
+     * @param maxDistance The largest distance in the distance field.
+     * @return The positions in the list where the bands start, followed by the end of the last band.
+     */
+    private static int[] distanceBands(int[] tiles, int count, int[] distance, int maxDistance) {
+        int[] bounds = new int[DISTANCE_BANDS + 1];
+        for (int band = 0; band <= DISTANCE_BANDS; band++) {
+            int minDistance = SAFE_DISTANCE + (maxDistance + 1 - SAFE_DISTANCE) * band / DISTANCE_BANDS;
+            bounds[band] = firstAtDistance(tiles, count, distance, minDistance);
+        }
+        return bounds;
+    }
+
+    /**
+     * Places a hazard in the distance bands of its candidate tiles. The n-th band from the entrance gets n shares of
+     * the hazards, and about a third of the hazards of every band are put on the solution path.
      * @param maze The maze to modify.
-     * @param random A Random instance to determine the position of the entrance.
+     * @param random A Random instance to choose the tiles.
+     * @param tiles The candidate tile indices, ordered by distance. Reordered within each band.
+     * @param bounds The bands of the candidates, see {@link #distanceBands(int[], int, int[], int)}.
+     * @param solution The marks of the tiles on the solution path.
+     * @param count The number of hazards to place.
+     * @param type The tile type of the hazard.
      */
-    private static void createEntrance(int[][] maze, Random random) {
-        int x = random.nextInt(1,maze[0].length - 1);
-        int y = random.nextInt(1, maze.length - 1);
+    private static void placeHazards(int[][] maze, Random random, int[] tiles, int[] bounds, boolean[] solution,
+                                     int count, int type) {
+        int shares = DISTANCE_BANDS * (DISTANCE_BANDS + 1) / 2;
+        int share = 0;
+        int placed = 0;
+        for (int band = 0; band < DISTANCE_BANDS; band++) {
+            share += band + 1;
+            int quota = count * share / shares - placed;
+            int onPath = place(maze, random, tiles, bounds[band], bounds[band + 1], solution,
+                    (quota + 1) / SOLUTION_SHARE, type);
+            placed += onPath + place(maze, random, tiles, bounds[band], bounds[band + 1], null, quota - onPath, type);
+        }
+    }
 
-        maze[y][x] = 4;
+    /**
+     * Places an entity on random path tiles of a range of candidates, by drawing them without replacement.
+     * @param maze The maze to modify.
+     * @param random A Random instance to choose the tiles.
+     * @param tiles The candidate tile indices. The range is reordered.
+     * @param from The start of the range of candidates, inclusive.
+     * @param to The end of the range of candidates, exclusive.
+     * @param filter The marks of the candidates that may be chosen, or null if all of them may.
+     * @param count The number of entities to place.
+     * @param type The tile type of the entity, or CHEST for a treasure chest of random type.
+     * @return The number of entities placed, less than count if the range ran out of candidates.
+     */
+    private static int place(int[][] maze, Random random, int[] tiles, int from, int to, boolean[] filter,
+                             int count, int type) {
+        int cols = maze[0].length;
+        int placed = 0;
+        for (int end = to; placed < count && end > from; end--) {
+            int i = from + random.nextInt(end - from);
+            int tile = tiles[i];
+            tiles[i] = tiles[end - 1];
+            tiles[end - 1] = tile;
+            if (maze[tile / cols][tile % cols] == PATH && (filter == null || filter[tile])) {
+                maze[tile / cols][tile % cols] = type == CHEST ? CHEST + random.nextInt(4) : type;
+                placed++;
+            }
+        }
+        return placed;
     }
 
     /**
-     * Randomly places the exit of the maze.
+     * Rounds an expected number of entities up or down at random, so that it is kept on average.
+     * @param random A Random instance for the rounding.
+     * @param expected The expected number of entities.
+     * @return The number of entities to place.
+     */
+    private static int expectedCount(Random random, double expected) {
+        return (int) (expected + random.nextDouble());
+    }
+
+    /**
+     * Places the entrance and the exit of the maze, choosing both in a single scan without retries. The exit is
+     * picked among all border tiles next to exactly three path tiles, the entrance among the path tiles that do not
+     * touch the border, so that it never blocks the way to the exit. Keeping the n-th candidate with probability
+     * 1 / n picks every candidate with the same probability without collecting them. If no border tile qualifies,
+     * the three tiles inside a random border tile are opened to make room for the exit.
      * @param maze The maze to modify.
-     * @param random A Random instance to determine the position of the exit.
-     */
-    private static void createExit(int[][] maze, Random random) {
-        int perimeter = 2 * (maze.length + maze[0].length) - 4;
-        int exitPos = random.nextInt(perimeter);
-
-        int x = -1, y = -1;
-
-        if (exitPos < maze[0].length) {
-            x = 0;
-            y = exitPos;
-        } else if (exitPos < maze[0].length + maze.length - 1) {
-            x = exitPos - maze[0].length + 1;
-            y = maze[0].length - 1;
-        } else if (exitPos < 2 * maze[0].length + maze.length - 2) {
-            x = maze.length - 1;
-            y = 2 * maze[0].length + maze.length - 3 - exitPos;
-        } else {
-            x = perimeter - exitPos;
-            y = 0;
+     * @param random A Random instance to choose the positions.
+     * @return The packed positions of the entrance and the exit, see {@link TileCoord}.
+     */
+    private static long[] createEntranceAndExit(int[][] maze, Random random) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        long exit = -1;
+        int exitCount = 0;
+        long entrance = -1;
+        int entranceCount = 0;
+        long fallback = -1;
+        int fallbackCount = 0;
+
+        for (int i = 0; i < rows; i++) {
+            boolean borderRow = i == 0 || i == rows - 1;
+            for (int j = 0; j < cols; j++) {
+                if (borderRow || j == 0 || j == cols - 1) {
+                    if (countSurroundingTiles(maze, j, i, PATH) == 3 && random.nextInt(++exitCount) == 0) {
+                        exit = TileCoord.of(j, i);
+                    }
+                } else if (maze[i][j] == PATH) {
+                    if (i > 1 && i < rows - 2 && j > 1 && j < cols - 2) {
+                        if (random.nextInt(++entranceCount) == 0) {
+                            entrance = TileCoord.of(j, i);
+                        }
+                    } else if (random.nextInt(++fallbackCount) == 0) {
+                        fallback = TileCoord.of(j, i);
+                    }
+                }
+            }
         }
 
-        if (countSurroundingTiles(maze, x, y, PATH) == 3) {
-            maze[y][x] = 12;
-        } else {
-            createExit(maze, random);
+        if (exit < 0) {
+            exit = openExit(maze, random);
+        }
+        if (entrance < 0) {
+            entrance = fallback >= 0 ? fallback : TileCoord.of(1, 1);
+        }
+        maze[TileCoord.y(exit)][TileCoord.x(exit)] = 12;
+        maze[TileCoord.y(entrance)][TileCoord.x(entrance)] = 4;
+        return new long[] {entrance, exit};
+    }
+
+    /**
+     * Makes room for an exit at a random border tile away from the corners, by opening the three tiles inside it.
+     * The opened tiles may not be connected to the rest of the maze yet, see
+     * {@link #ensureSolvable(int[][], long, long)}.
+     * @param maze The maze to modify, at least 5 tiles wide and high.
+     * @param random A Random instance to choose the position.
+     * @return The packed position of the exit.
+     */
+    private static long openExit(int[][] maze, Random random) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        int x;
+        int y;
+        switch (random.nextInt(4)) {
+            case 0 -> {
+                x = 0;
+                y = 2 + random.nextInt(rows - 4);
+            }
+            case 1 -> {
+                x = cols - 1;
+                y = 2 + random.nextInt(rows - 4);
+            }
+            case 2 -> {
+                x = 2 + random.nextInt(cols - 4);
+                y = 0;
+            }
+            default -> {
+                x = 2 + random.nextInt(cols - 4);
+                y = rows - 1;
+            }
+        }
+        int inX = x == 0 ? 1 : x == cols - 1 ? cols - 2 : x;
+        int inY = y == 0 ? 1 : y == rows - 1 ? rows - 2 : y;
+        for (int d = -1; d <= 1; d++) {
+            if (x == 0 || x == cols - 1) {
+                maze[inY + d][inX] = PATH;
+            } else {
+                maze[inY][inX + d] = PATH;
+            }
+        }
+        return TileCoord.of(x, y);
+    }
+
+    /**
+     * Makes sure that the exit can be reached from the entrance, with a flood fill over all tiles that are not walls,
+     * see {@link Reachability}. If it cannot, a corridor is carved from the exit to the nearest tile connected to the
+     * entrance, found with a breadth-first search that may cross walls but keeps away from the border.
+     * @param maze The maze to check and repair.
+     * @param entrance The packed position of the entrance.
+     * @param exit The packed position of the exit.
+     */
+    private static void ensureSolvable(int[][] maze, long entrance, long exit) {
+        int rows = maze.length;
+        int cols = maze[0].length;
+        Reachability reachability = Reachability.of(maze);
+        if (reachability.isReachable(TileCoord.x(entrance), TileCoord.y(entrance), TileCoord.x(exit),
+                TileCoord.y(exit))) {
+            return;
+        }
+        TileMask reached = reachability.component(TileCoord.x(entrance), TileCoord.y(entrance));
+
+        int start = TileCoord.y(exit) * cols + TileCoord.x(exit);
+        int[] parent = new int[rows * cols];
+        int[] queue = new int[rows * cols];
+        Arrays.fill(parent, -1);
+        parent[start] = start;
+        queue[0] = start;
+        int tail = 1;
+        for (int head = 0; head < tail; head++) {
+            int current = queue[head];
+            int x = current % cols;
+            int y = current / cols;
+            if (reached.get(x, y)) {
+                for (int at = parent[current]; at != start; at = parent[at]) {
+                    if (maze[at / cols][at % cols] == WALL) {
+                        maze[at / cols][at % cols] = PATH;
+                    }
+                }
+                return;
+            }
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + DX[dir];
+                int ny = y + DY[dir];
+                if (nx > 0 && ny > 0 && nx < cols - 1 && ny < rows - 1 && parent[ny * cols + nx] < 0) {
+                    parent[ny * cols + nx] = current;
+                    queue[tail++] = ny * cols + nx;
+                }
+            }
         }
     }
 
@@ -262,60 +1122,19 @@ private static int countSurroundingTiles(int[][] maze, int x, int y, int type) {
     /**
      * Sets all tiles of an area of the maze to a given type.
      * @param maze The maze to modify.
+     * @param walls The wall counts of the maze, updated along with it.
      * @param x The x position of the middle of the area.
      * @param y The y position of the middle of the area.
      * @param size The side length of the area.
      * @param type The tile type to apply.
      */
-    private static void setArea(int[][] maze, int x, int y, int size, int type) {
+    private static void setArea(int[][] maze, NeighbourCounts walls, int x, int y, int size, int type) {
         for (int i = -size / 2; i < size / 2 + size % 2; i++) {
             for (int j = -size / 2; j < size / 2 + size % 2; j++) {
                 if (inBounds(maze, x + j, y + i)) {
-                    maze[y + i][x + j] = type;
-                }
-            }
-        }
-    }
-
-    /**
-     * Depth-first search algorithm used to carve a path into the maze.
-     * @param maze An empty maze consisting only of walls.
-     * @param startX The x position to start the search from.
-     * @param startY The y position to start the search from.
-     * @param random A Random instance to randomly select a direction in the path search.
-     */
-    private static void dfs(int[][] maze, int startX, int startY, Random random) {
-        Stack<int[]> stack = new Stack<>();
-        stack.push(new int[]{startX, startY});
-        maze[startY][startX] = PATH;
-
-        while (!stack.isEmpty()) {
-            int[] current = stack.peek();
-            int x = current[0];
-            int y = current[1];
-
-            List<Integer> directions = Arrays.asList(0, 1, 2, 3);
-            Collections.shuffle(directions, random);
-
-            boolean foundNextCell = false;
-
-            for (int dir : directions) {
-                int nx = x + DX[dir] * 2;
-                int ny = y + DY[dir] * 2;
-
-                if (inBounds(maze, nx, ny) && maze[ny][nx] == WALL) {
-                    maze[y + DY[dir]][x + DX[dir]] = PATH;
-                    maze[ny][nx] = PATH;
-
-                    stack.push(new int[]{nx, ny});
-                    foundNextCell = true;
-                    break;
+                    walls.set(x + j, y + i, type);
                 }
             }
-
-            if (!foundNextCell) {
-                stack.pop();
-            }
         }
     }
 
@@ -331,40 +1150,246 @@ public static boolean inBounds(int[][] maze, int x, int y) {
     }
 
     /**
-     * Saves a maze in a file.
+     * Saves a maze in a binary maze file, see {@link MazeFile}.
      * @param maze The maze in integer array representation.
      * @param filename The name of the file to save to maze in.
      */
     public static void saveMaze(int[][] maze, String filename) {
-        Properties prop = new Properties();
-        try {
-            FileOutputStream file = new FileOutputStream(filename);
+        try (OutputStream out = new FileOutputStream(filename)) {
+            MazeFile.write(arrayStore(maze), out);
+        } catch (IOException e) {
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * Wraps a maze in integer array representation in a tile store, where the first array index is the x position.
+     * @param maze The maze in integer array representation.
+     * @return A store reading and writing the array.
+     */
+    static TileStore arrayStore(int[][] maze) {
+        return new TileStore() {
+            @Override
+            public int get(int x, int y) {
+                return inBounds(x, y) ? maze[x][y] : NONE;
+            }
+
+            @Override
+            public void set(int x, int y, int value) {
+                if (inBounds(x, y)) {
+                    maze[x][y] = value;
+                }
+            }
+
+            @Override
+            public int getWidth() {
+                return maze.length;
+            }
+
+            @Override
+            public int getHeight() {
+                return maze[0].length;
+            }
+        };
+    }
+
+    /**
+     * Saves a maze in a memory-mapped tile file, which can be opened with {@link #openMapped(String, int)}.
+     * @param maze The maze in integer array representation.
+     * @param filename The name of the file to save to maze in.
+     */
+    public static void saveMapped(int[][] maze, String filename) {
+        try (MappedTileStore store = MappedTileStore.create(Path.of(filename), maze.length, maze[0].length)) {
             for (int i = 0; i < maze.length; i++) {
                 for (int j = 0; j < maze[i].length; j++) {
-                    prop.setProperty(i + "," + j, "" + maze[i][j]);
+                    store.set(i, j, maze[i][j]);
                 }
             }
-            prop.store(file, null);
+            store.force();
         } catch (IOException e) {
             System.out.println(e.getMessage());
         }
+    }
+
+    /**
+     * Returns the tile type at a given position.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The tile type, or TileStore.NONE if there is no tile at the position.
+     */
+    public int getTile(int x, int y) {
+        return tileType(tiles.get(x, y));
+    }
+
+    /**
+     * Finds the entrance of the maze, reading the tiles only up to the first entrance.
+     * @return The packed position of the entrance, see {@link TileCoord}, or -1 if the maze has none.
+     */
+    public long findEntrance() {
+        for (int y = 0; y < tiles.getHeight(); y++) {
+            for (int x = 0; x < tiles.getWidth(); x++) {
+                if (tiles.get(x, y) == 4) {
+                    return TileCoord.of(x, y);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Changes the tile type at a given position and records the change in the journal of the maze.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param type The new tile type.
+     */
+    public void setTile(int x, int y, int type) {
+        if (!tiles.inBounds(x, y) || getTile(x, y) == type) {
+            return;
+        }
+        // the entity standing on the tile has to be copied out before its value is overwritten
+        index(x, y, x, y);
+        tiles.set(x, y, type);
+        updateMasks(x, y, type);
+        journal.record(x, y, x, y);
+    }
 
+    /**
+     * Checks whether a rectangle of tiles contains a wall or a closed gate.
+     * @param x0 The smallest x position of the rectangle, inclusive.
+     * @param y0 The smallest y position of the rectangle, inclusive.
+     * @param x1 The largest x position of the rectangle, inclusive.
+     * @param y1 The largest y position of the rectangle, inclusive.
+     * @return true if any tile in the rectangle blocks movement, otherwise false.
+     */
+    public boolean isBlocked(int x0, int y0, int x1, int y1) {
+        index(x0, y0, x1, y1);
+        return walls.anyInRect(x0, y0, x1, y1) || gates.anyInRect(x0, y0, x1, y1);
     }
 
     /**
-     * Returns the maze as a map with Points as keys and integers representing tile types as values.
+     * Opens all exit gates so that they no longer block movement.
+     */
+    public void openGates() {
+        gatesOpen = true;
+        gates.clear();
+        journal.record(0, 0, tiles.getWidth() - 1, tiles.getHeight() - 1);
+    }
+
+    /**
+     * Returns whether the exit gates have been opened.
+     * @return true if the gates are open, otherwise false.
+     */
+    public boolean areGatesOpen() {
+        return gatesOpen;
+    }
+
+    /**
+     * Publishes a new snapshot of the maze if it changed since the last one was published and that one has been
+     * asked for. Called once per frame by the thread that modifies the maze. The tile layer is chunked, so this only
+     * copies its table of chunks, but every chunk shared with a snapshot is copied when it is next changed, so no
+     * snapshots are taken while nobody reads them.
+     */
+    public void publishSnapshot() {
+        if (snapshotRequested && snapshot.getVersion() != journal.getVersion()) {
+            snapshotRequested = false;
+            snapshot = new MazeSnapshot(tileTypes(tiles.snapshot()), journal.getVersion(), gatesOpen);
+        }
+    }
+
+    /**
+     * Returns the most recently published snapshot of the maze. Safe to call from any thread. Snapshots are only
+     * published while they are asked for, so the first one after a pause may be older than one frame, see
+     * {@link MazeSnapshot#getVersion()}.
+     * @return The latest snapshot.
+     */
+    public MazeSnapshot getSnapshot() {
+        snapshotRequested = true;
+        return snapshot;
+    }
+
+    /**
+     * Returns the version of the maze, which increases with every change to its tiles.
+     * @return The current version.
+     */
+    public long getVersion() {
+        return journal.getVersion();
+    }
+
+    /**
+     * Reports the regions of the maze that changed after a given version, so that caches only need to rebuild
+     * the affected parts.
+     * @param since The version the caller is up to date with.
+     * @param visitor The callback to invoke for every changed region.
+     * @return true if all changes could be reported, false if the caller has to treat the whole maze as changed.
+     */
+    public boolean changesSince(long since, MazeJournal.RegionVisitor visitor) {
+        return journal.changesSince(since, visitor);
+    }
+
+    /**
+     * Returns the bitset of wall tiles.
+     * @return A mask with the bits of all wall tiles set.
+     */
+    public TileMask getWalls() {
+        indexAll();
+        return walls;
+    }
+
+    /**
+     * Returns the bitset of closed gate tiles.
+     * @return A mask with the bits of all closed gate tiles set.
+     */
+    public TileMask getGates() {
+        indexAll();
+        return gates;
+    }
+
+    /**
+     * Returns the entity type at a given position.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The entity type, or TileStore.NONE if there is no entity at the position.
+     */
+    public int getEntity(int x, int y) {
+        index(x, y, x, y);
+        return entities.get(x, y);
+    }
+
+    /**
+     * Returns a read-only view of the grid containing the walls and paths of the maze. Changes must go through
+     * {@link #setTile(int, int, int)} so that the collision bitsets stay up to date.
+     * @return The tile store of the maze.
+     */
+    public TileStore getTiles() {
+        return tileTypes(tiles);
+    }
+
+    /**
+     * Returns the grid containing the locations of entities in the maze.
+     * @return The entity store of the maze.
+     */
+    public TileStore getEntities() {
+        indexAll();
+        return entities;
+    }
+
+    /**
+     * Returns a read-only view of the maze as a map with Points as keys and integers representing tile types as
+     * values. Prefer {@link #getTile(int, int)}, which does not allocate.
      * @return A map containing the walls and paths of the maze.
      */
     public Map<Point, Integer> getMazeMap() {
-        return mazeMap;
+        return tileTypes(tiles).asMap();
     }
 
     /**
-     * Returns the maze as a map with Points as keys and integers representing entity types as values.
+     * Returns a read-only view of the maze as a map with Points as keys and integers representing entity types as
+     * values. Prefer {@link #getEntity(int, int)}, which does not allocate.
      * @return A map containing the locations of entities in the maze.
      */
     public Map<Point, Integer> getEntityMap() {
-        return entityMap;
+        indexAll();
+        return entities.asMap();
     }
 
     /**
@@ -382,4 +1407,13 @@ public Texture getTexture() {
     public int getSize() {
         return size;
     }
+
+    /**
+     * Returns the seed of the maze. Entities derive the seed of their random behaviour from it and their position,
+     * so a maze generated from the same seed plays out the same way. Mazes loaded from files have the seed 0.
+     * @return The seed the maze was generated from.
+     */
+    public long getSeed() {
+        return seed;
+    }
 }
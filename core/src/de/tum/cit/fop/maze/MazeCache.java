@@ -0,0 +1,200 @@
+package de.tum.cit.fop.maze;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+/**
+ * A cache of generated mazes, keyed by the seed, size and difficulty they were generated from. Mazes are kept in
+ * their compact form as binary maze files (see {@link MazeFile}), which are usually run-length encoded, both in
+ * memory and in a directory on disk. Both levels evict the least recently used mazes once they are full, so that
+ * replaying a seed or restarting a game is a lookup instead of a regeneration.
+ */
+public class MazeCache {
+    private final Path directory;
+    private final int diskCapacity;
+    private final Executor writer;
+    private final Map<String, byte[]> memory;
+
+    /**
+     * Constructor for MazeCache.
+     * @param directory The directory to keep the cached maze files in. It is created when the first maze is stored.
+     * @param memoryCapacity The number of mazes to keep in memory.
+     * @param diskCapacity The number of maze files to keep on disk.
+     * @param writer The executor writing maze files in the background.
+     */
+    public MazeCache(Path directory, int memoryCapacity, int diskCapacity, Executor writer) {
+        this.directory = directory;
+        this.diskCapacity = diskCapacity;
+        this.writer = writer;
+        memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > memoryCapacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a maze from the cache, generating and storing it if it is not cached yet.
+     * @param seed The seed the maze is generated from.
+     * @param size The size of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @return A new copy of the maze in integer array representation.
+     */
+    public int[][] get(long seed, int size, float difficulty) {
+        String key = key(seed, size, difficulty);
+        byte[] compact;
+        synchronized (memory) {
+            compact = memory.get(key);
+        }
+        if (compact == null) {
+            compact = readFile(key);
+            if (compact != null) {
+                synchronized (memory) {
+                    memory.put(key, compact);
+                }
+            }
+        }
+        if (compact != null) {
+            try {
+                return decode(compact);
+            } catch (IOException e) {
+                System.out.println("Cached maze " + key + " is invalid: " + e.getMessage());
+            }
+        }
+        int[][] maze = Maze.generateMaze(size, size, difficulty, seed);
+        put(seed, size, difficulty, maze);
+        return maze;
+    }
+
+    /**
+     * Stores a generated maze. It is kept in memory right away and written to disk in the background.
+     * @param seed The seed the maze was generated from.
+     * @param size The size of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @param maze The maze in integer array representation. It is not modified.
+     */
+    public void put(long seed, int size, float difficulty, int[][] maze) {
+        String key = key(seed, size, difficulty);
+        byte[] compact;
+        try {
+            compact = encode(maze);
+        } catch (IOException e) {
+            System.out.println("Maze could not be cached: " + e.getMessage());
+            return;
+        }
+        synchronized (memory) {
+            memory.put(key, compact);
+        }
+        writer.execute(() -> writeFile(key, compact));
+    }
+
+    /**
+     * Builds the key of a maze, which is also the name of its file.
+     * @param seed The seed the maze is generated from.
+     * @param size The size of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @return The key.
+     */
+    private static String key(long seed, int size, float difficulty) {
+        return String.format("%016x-%d-%08x.bin", seed, size, Float.floatToIntBits(difficulty));
+    }
+
+    /**
+     * Encodes a maze as a binary maze file.
+     * @param maze The maze in integer array representation.
+     * @return The file contents.
+     * @throws IOException If encoding fails.
+     */
+    private static byte[] encode(int[][] maze) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MazeFile.write(Maze.arrayStore(maze), out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a maze from a binary maze file.
+     * @param compact The file contents.
+     * @return The maze in integer array representation.
+     * @throws IOException If the file is invalid.
+     */
+    private static int[][] decode(byte[] compact) throws IOException {
+        MazeFile.Header header = MazeFile.decodeHeader(ByteBuffer.wrap(compact, 0, MazeFile.HEADER_SIZE));
+        int[][] maze = new int[header.width()][header.height()];
+        MazeFile.readBody(new ByteArrayInputStream(compact, MazeFile.HEADER_SIZE, compact.length - MazeFile.HEADER_SIZE),
+                header, Maze.arrayStore(maze));
+        return maze;
+    }
+
+    /**
+     * Reads a cached maze file and marks it as recently used.
+     * @param key The key of the maze.
+     * @return The file contents, or null if the maze is not cached on disk.
+     */
+    private byte[] readFile(String key) {
+        Path path = directory.resolve(key);
+        try {
+            byte[] compact = Files.readAllBytes(path);
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return compact;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.out.println("Cached maze " + key + " could not be read: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a maze file to the cache directory and deletes the least recently used files beyond the capacity.
+     * @param key The key of the maze.
+     * @param compact The file contents.
+     */
+    private void writeFile(String key, byte[] compact) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = directory.resolve(key + ".tmp");
+            Files.write(temp, compact);
+            Files.move(temp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            List<Path> files;
+            try (Stream<Path> list = Files.list(directory)) {
+                files = list.filter(path -> path.getFileName().toString().endsWith(".bin"))
+                        .sorted(Comparator.comparing(MazeCache::lastModified).reversed())
+                        .toList();
+            }
+            for (int i = diskCapacity; i < files.size(); i++) {
+                Files.deleteIfExists(files.get(i));
+            }
+        } catch (IOException e) {
+            System.out.println("Maze could not be cached: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns when a cached maze file was last used.
+     * @param path The path of the file.
+     * @return The time of the last use, or the epoch if it cannot be read.
+     */
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package de.tum.cit.fop.maze;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+
+/**
+ * The binary maze file format. A file starts with a 16 byte header: the magic number "MZTL", a format version, a
+ * set of flags, and the width and height of the maze, all big-endian. The header is followed by the tiles in
+ * row-major order, either as one byte per tile or run-length encoded as (run length - 1, value) byte pairs.
+ * Files with the CRC flag end with the CRC32 of the decoded tiles. Uncompressed files can be memory-mapped directly,
+ * see {@link MappedTileStore}.
+ */
+public final class MazeFile {
+    /**
+     * The magic number at the start of every binary maze file, "MZTL" in ASCII.
+     */
+    public static final int MAGIC = 0x4D5A544C;
+    /**
+     * The version of the file format.
+     */
+    public static final short VERSION = 1;
+    /**
+     * The size of the header in bytes.
+     */
+    public static final int HEADER_SIZE = 16;
+    /**
+     * Flag marking a run-length encoded body.
+     */
+    public static final int FLAG_RLE = 1;
+    /**
+     * Flag marking a file that ends with a CRC32 of its tiles.
+     */
+    public static final int FLAG_CRC = 2;
+    private static final int MAX_RUN = 256;
+
+    /**
+     * The header of a binary maze file.
+     * @param flags The flags of the file.
+     * @param width The width of the maze.
+     * @param height The height of the maze.
+     */
+    public record Header(int flags, int width, int height) {
+        /**
+         * Returns whether a flag is set in the header.
+         * @param flag The flag to check.
+         * @return true if the flag is set, otherwise false.
+         */
+        public boolean has(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+
+    private MazeFile() {
+    }
+
+    /**
+     * Checks whether the first bytes of a file belong to a binary maze file.
+     * @param start The first four bytes of the file, or fewer if the file is shorter.
+     * @return true if the bytes contain the magic number, otherwise false.
+     */
+    public static boolean isBinary(byte[] start) {
+        return start.length >= 4 && ByteBuffer.wrap(start).getInt() == MAGIC;
+    }
+
+    /**
+     * Builds the header of a binary maze file.
+     * @param header The contents of the header.
+     * @return A buffer containing the header, ready to be written.
+     */
+    public static ByteBuffer encodeHeader(Header header) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) header.flags())
+                .putInt(header.width()).putInt(header.height());
+        return buffer.flip();
+    }
+
+    /**
+     * Parses and validates the header of a binary maze file.
+     * @param buffer A buffer positioned at the start of the header.
+     * @return The parsed header.
+     * @throws IOException If the buffer does not contain a valid header.
+     */
+    public static Header decodeHeader(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary maze file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported maze file version " + version);
+        }
+        int flags = buffer.getShort();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Invalid maze dimensions " + width + "x" + height);
+        }
+        return new Header(flags, width, height);
+    }
+
+    /**
+     * Writes a maze as a binary maze file with a checksum. The body is run-length encoded if that makes it smaller.
+     * @param store The tiles to write.
+     * @param out The stream to write to. It is not closed.
+     * @throws IOException If writing fails.
+     */
+    public static void write(TileStore store, OutputStream out) throws IOException {
+        int width = store.getWidth();
+        int height = store.getHeight();
+        boolean rle = 2L * countRuns(store) < (long) width * height;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.write(encodeHeader(new Header(FLAG_CRC | (rle ? FLAG_RLE : 0), width, height)).array());
+
+        CRC32 crc = new CRC32();
+        byte[] row = new byte[width];
+        int runValue = 0;
+        int runLength = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                row[x] = (byte) store.get(x, y);
+            }
+            crc.update(row);
+            if (!rle) {
+                data.write(row);
+                continue;
+            }
+            for (byte tile : row) {
+                if (runLength > 0 && (tile != runValue || runLength == MAX_RUN)) {
+                    data.write(runLength - 1);
+                    data.write(runValue);
+                    runLength = 0;
+                }
+                runValue = tile;
+                runLength++;
+            }
+        }
+        if (runLength > 0) {
+            data.write(runLength - 1);
+            data.write(runValue);
+        }
+        data.writeInt((int) crc.getValue());
+        data.flush();
+    }
+
+    /**
+     * Counts the runs the run-length encoding of a maze would consist of.
+     * @param store The tiles to encode.
+     * @return The number of runs.
+     */
+    private static long countRuns(TileStore store) {
+        long runs = 0;
+        int runValue = 0;
+        int runLength = 0;
+        for (int y = 0; y < store.getHeight(); y++) {
+            for (int x = 0; x < store.getWidth(); x++) {
+                int tile = store.get(x, y);
+                if (runLength == 0 || tile != runValue || runLength == MAX_RUN) {
+                    runs++;
+                    runValue = tile;
+                    runLength = 0;
+                }
+                runLength++;
+            }
+        }
+        return runs;
+    }
+
+    /**
+     * Reads the tiles of a binary maze file into a store and verifies the checksum if the file has one.
+     * @param in A stream positioned directly after the header. DataInputStreams are read without extra buffering,
+     *           so that they are left positioned directly after the maze.
+     * @param header The header of the file.
+     * @param store The store to fill, at least as large as the maze in the file.
+     * @throws IOException If reading fails, the file is truncated or the checksum does not match.
+     */
+    public static void readBody(InputStream in, Header header, TileStore store) throws IOException {
+        DataInputStream data = in instanceof DataInputStream stream
+                ? stream
+                : new DataInputStream(new BufferedInputStream(in));
+        int width = header.width();
+        CRC32 crc = new CRC32();
+        byte[] row = new byte[width];
+        int runValue = 0;
+        int runLength = 0;
+        for (int y = 0; y < header.height(); y++) {
+            if (!header.has(FLAG_RLE)) {
+                data.readFully(row);
+            } else {
+                for (int x = 0; x < width; x++) {
+                    if (runLength == 0) {
+                        runLength = data.readUnsignedByte() + 1;
+                        runValue = data.readByte();
+                    }
+                    row[x] = (byte) runValue;
+                    runLength--;
+                }
+            }
+            crc.update(row);
+            for (int x = 0; x < width; x++) {
+                store.set(x, y, row[x]);
+            }
+        }
+        if (header.has(FLAG_CRC) && data.readInt() != (int) crc.getValue()) {
+            throw new IOException("Maze file checksum mismatch");
+        }
+    }
+}
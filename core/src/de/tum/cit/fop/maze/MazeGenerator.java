@@ -0,0 +1,48 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Random;
+
+/**
+ * An algorithm carving the paths of a perfect maze, in which every cell can be reached from every other cell on
+ * exactly one path. Cells lie two tiles apart, and carving connects two neighbouring cells by turning them and the
+ * wall tile between them into paths. Implementations keep their working state in primitive arrays and hold no state
+ * between calls, so one instance can carve several rectangles at the same time.
+ */
+public interface MazeGenerator {
+    /**
+     * The tile value of walls.
+     */
+    int WALL = 0;
+    /**
+     * The tile value of paths.
+     */
+    int PATH = 1;
+
+    /**
+     * Carves a perfect maze into a rectangle of a maze. The cells are the positions minX + 2 * i, minY + 2 * j inside
+     * the rectangle. Tiles outside the rectangle are neither read nor written.
+     * @param maze The maze in integer array representation, indexed as maze[y][x]. The rectangle must consist only
+     *             of walls.
+     * @param minX The smallest x position of the rectangle, which is the x position of the first cell column.
+     * @param minY The smallest y position of the rectangle, which is the y position of the first cell row.
+     * @param maxX The largest x position of the rectangle.
+     * @param maxY The largest y position of the rectangle.
+     * @param random A Random instance to make the random choices of the algorithm.
+     */
+    void carve(int[][] maze, int minX, int minY, int maxX, int maxY, Random random);
+
+    /**
+     * Carves a perfect maze into a whole maze, with cells at all odd positions.
+     * @param maze The maze in integer array representation, consisting only of walls.
+     * @param random A Random instance to make the random choices of the algorithm.
+     */
+    default void carve(int[][] maze, Random random) {
+        carve(maze, 1, 1, maze[0].length - 1, maze.length - 1, random);
+    }
+
+    /**
+     * Returns the name of the algorithm, used in reports.
+     * @return The name of the algorithm.
+     */
+    String getName();
+}
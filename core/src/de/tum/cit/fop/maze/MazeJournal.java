@@ -0,0 +1,107 @@
+package de.tum.cit.fop.maze;
+
+/**
+ * A bounded journal of the regions of a maze that changed, used by caches to invalidate only what is affected by a
+ * change. Every change increases the version of the maze by one. The journal keeps the most recent changes as
+ * rectangles; neighbouring changes are merged into one rectangle, so that e.g. a bomb blast takes up one entry.
+ */
+public class MazeJournal {
+    /**
+     * Callback used to report changed regions.
+     */
+    public interface RegionVisitor {
+        /**
+         * Called for every changed rectangle of tiles.
+         * @param x0 The smallest x position of the rectangle, inclusive.
+         * @param y0 The smallest y position of the rectangle, inclusive.
+         * @param x1 The largest x position of the rectangle, inclusive.
+         * @param y1 The largest y position of the rectangle, inclusive.
+         */
+        void visit(int x0, int y0, int x1, int y1);
+    }
+
+    private static final int MERGE_EXTENT = 8;
+    private final int capacity;
+    private final int[] regions;
+    private final long[] versions;
+    private int head;
+    private int count;
+    private long version;
+    private long evictedVersion;
+
+    /**
+     * Constructor for MazeJournal.
+     * @param capacity The maximum number of rectangles to keep.
+     */
+    public MazeJournal(int capacity) {
+        this.capacity = capacity;
+        regions = new int[capacity * 4];
+        versions = new long[capacity];
+    }
+
+    /**
+     * Records a change to a rectangle of tiles and increases the version.
+     * @param x0 The smallest x position of the rectangle, inclusive.
+     * @param y0 The smallest y position of the rectangle, inclusive.
+     * @param x1 The largest x position of the rectangle, inclusive.
+     * @param y1 The largest y position of the rectangle, inclusive.
+     */
+    public void record(int x0, int y0, int x1, int y1) {
+        version++;
+        if (count > 0) {
+            int last = ((head - 1 + capacity) % capacity) * 4;
+            int unionX0 = Math.min(x0, regions[last]);
+            int unionY0 = Math.min(y0, regions[last + 1]);
+            int unionX1 = Math.max(x1, regions[last + 2]);
+            int unionY1 = Math.max(y1, regions[last + 3]);
+            if (unionX1 - unionX0 < MERGE_EXTENT && unionY1 - unionY0 < MERGE_EXTENT) {
+                regions[last] = unionX0;
+                regions[last + 1] = unionY0;
+                regions[last + 2] = unionX1;
+                regions[last + 3] = unionY1;
+                versions[last / 4] = version;
+                return;
+            }
+        }
+        if (count == capacity) {
+            evictedVersion = versions[head];
+        } else {
+            count++;
+        }
+        regions[head * 4] = x0;
+        regions[head * 4 + 1] = y0;
+        regions[head * 4 + 2] = x1;
+        regions[head * 4 + 3] = y1;
+        versions[head] = version;
+        head = (head + 1) % capacity;
+    }
+
+    /**
+     * Reports all regions that changed after a given version. A region may be reported even if only part of it
+     * changed after that version.
+     * @param since The version the caller is up to date with.
+     * @param visitor The callback to invoke for every changed region.
+     * @return true if all changes could be reported, false if some of them were already dropped from the journal,
+     *         in which case the caller has to treat the whole maze as changed.
+     */
+    public boolean changesSince(long since, RegionVisitor visitor) {
+        if (since < evictedVersion) {
+            return false;
+        }
+        for (int i = 0; i < count; i++) {
+            int index = (head - count + i + capacity) % capacity;
+            if (versions[index] > since) {
+                visitor.visit(regions[index * 4], regions[index * 4 + 1], regions[index * 4 + 2], regions[index * 4 + 3]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the current version, which is the number of changes recorded so far.
+     * @return The current version.
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,148 @@
+package de.tum.cit.fop.maze;
+
+import java.util.ArrayDeque;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A small pool of mazes generated in the background, so that starting a game does not have to wait for the
+ * generator. The pool is prepared for one size and difficulty at a time while the player is still choosing them in
+ * the menus. A worker thread then keeps it filled up to its capacity, and every maze taken out is replaced
+ * asynchronously. Mazes for a previous size or difficulty are discarded, including those still being generated.
+ * Every maze is generated from a new random seed, which is handed out along with it. A maze that fails to generate
+ * is replaced by one from another seed. After several failures in a row the pool stops refilling itself until the
+ * next maze is prepared or taken.
+ */
+public class MazePool {
+    /**
+     * A maze taken from the pool.
+     * @param seed The seed the maze was generated from.
+     * @param tiles The maze in integer array representation.
+     */
+    public record GeneratedMaze(long seed, int[][] tiles) {
+    }
+
+    private static final int MAX_FAILURES = 3;
+
+    private final int capacity;
+    private final ExecutorService worker;
+    private final Random seeds = new Random();
+    private final ArrayDeque<GeneratedMaze> ready = new ArrayDeque<>();
+    private int size = -1;
+    private float difficulty;
+    private int generation;
+    private int pending;
+    private int failures;
+
+    /**
+     * Constructor for MazePool.
+     * @param capacity The number of mazes to keep ready.
+     */
+    public MazePool(int capacity) {
+        this.capacity = capacity;
+        worker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "maze-pool");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts filling the pool with mazes of a given size and difficulty. Mazes prepared for any other size or
+     * difficulty are discarded.
+     * @param size The size of the mazes.
+     * @param difficulty The difficulty modifier of the mazes.
+     */
+    public synchronized void prepare(int size, float difficulty) {
+        if (size != this.size || difficulty != this.difficulty) {
+            this.size = size;
+            this.difficulty = difficulty;
+            generation++;
+            ready.clear();
+            pending = 0;
+            failures = 0;
+        }
+        refill();
+    }
+
+    /**
+     * Takes a maze out of the pool and starts generating a replacement. If no maze of the requested size and
+     * difficulty is ready, one is generated on the calling thread and the pool is prepared for them.
+     * @param size The size of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @return The maze and its seed.
+     */
+    public GeneratedMaze take(int size, float difficulty) {
+        long seed;
+        synchronized (this) {
+            if (size == this.size && difficulty == this.difficulty && !ready.isEmpty()) {
+                GeneratedMaze maze = ready.poll();
+                refill();
+                return maze;
+            }
+            prepare(size, difficulty);
+            seed = seeds.nextLong();
+        }
+        return new GeneratedMaze(seed, Maze.generateMaze(size, size, difficulty, seed));
+    }
+
+    /**
+     * Schedules the generation of as many mazes as are missing from the pool.
+     */
+    private void refill() {
+        while (ready.size() + pending < capacity) {
+            pending++;
+            int requested = generation;
+            int mazeSize = size;
+            float mazeDifficulty = difficulty;
+            long seed = seeds.nextLong();
+            worker.execute(() -> generate(requested, mazeSize, mazeDifficulty, seed));
+        }
+    }
+
+    /**
+     * Generates one maze for the pool on the worker thread. Requests made for a previous size or difficulty are
+     * skipped.
+     * @param requested The generation of the pool the maze was requested for.
+     * @param size The size of the maze.
+     * @param difficulty The difficulty modifier of the maze.
+     * @param seed The seed to generate the maze from.
+     */
+    private void generate(int requested, int size, float difficulty, long seed) {
+        synchronized (this) {
+            if (requested != generation) {
+                return;
+            }
+        }
+        GeneratedMaze maze;
+        try {
+            maze = new GeneratedMaze(seed, Maze.generateMaze(size, size, difficulty, seed));
+        } catch (RuntimeException e) {
+            System.out.println("Maze could not be generated: " + e.getMessage());
+            maze = null;
+        }
+        synchronized (this) {
+            if (requested != generation) {
+                return;
+            }
+            pending--;
+            if (maze != null) {
+                ready.add(maze);
+                failures = 0;
+            } else if (++failures < MAX_FAILURES) {
+                refill();
+            } else {
+                System.out.println("Maze pool stopped after " + failures + " failed mazes");
+            }
+        }
+    }
+
+    /**
+     * Stops generating mazes.
+     */
+    public void shutdown() {
+        worker.shutdownNow();
+    }
+}
@@ -8,6 +8,14 @@
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import games.spooky.gdx.nativefilechooser.NativeFileChooser;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 /**
  * The MazeRunnerGame class represents the core of the Maze Runner game.
  * It manages the screens and global resources like SpriteBatch and Skin.
@@ -24,6 +32,19 @@ public class MazeRunnerGame extends Game {
 
     private float difficulty = 1f;
     private int mazeSize;
+    private long currentSeed;
+    private static final String SAVE_FILE = "saves/savegame.bin";
+    private static final String CACHE_DIRECTORY = "cache/mazes";
+    private static final int POOL_CAPACITY = 2;
+    private static final int CACHE_MEMORY_CAPACITY = 8;
+    private static final int CACHE_DISK_CAPACITY = 64;
+    private final ExecutorService saveWriter =
+            Executors.newSingleThreadExecutor(task -> new Thread(task, "save-writer"));
+    private final ExecutorService cacheWriter =
+            Executors.newSingleThreadExecutor(task -> new Thread(task, "cache-writer"));
+    private final MazePool mazePool = new MazePool(POOL_CAPACITY);
+    private final MazeCache mazeCache = new MazeCache(Path.of(CACHE_DIRECTORY), CACHE_MEMORY_CAPACITY,
+            CACHE_DISK_CAPACITY, cacheWriter);
 
     private Music backgroundMusic;
     private Music gameMusic;
@@ -87,11 +108,40 @@ public void goToMenu() {
     }
 
     /**
-     * Switches to the game screen and generates a new maze.
+     * Starts generating mazes for the selected size and difficulty in the background, so that one is ready when
+     * the game starts.
+     */
+    public void prepareMazes() {
+        mazePool.prepare(mazeSize, difficulty);
+    }
+
+    /**
+     * Switches to the game screen with a new maze, taken from the mazes prepared in the background if possible. The
+     * maze is handed to the game screen directly and cached, its copy on disk being written in the background.
      */
     public void goToGame() {
-        Maze.saveMaze(Maze.generateMaze(mazeSize, mazeSize, difficulty), "maps/maze.properties");
-        this.setScreen(new GameScreen(this));
+        MazePool.GeneratedMaze generated = mazePool.take(mazeSize, difficulty);
+        mazeCache.put(generated.seed(), mazeSize, difficulty, generated.tiles());
+        startGame(generated.seed(), generated.tiles());
+    }
+
+    /**
+     * Switches to the game screen with the maze generated from a given seed for the selected size and difficulty.
+     * The maze is taken from the cache if it has been played before.
+     * @param seed The seed of the maze.
+     */
+    public void goToGame(long seed) {
+        startGame(seed, mazeCache.get(seed, mazeSize, difficulty));
+    }
+
+    /**
+     * Switches to the game screen with a generated maze.
+     * @param seed The seed the maze was generated from.
+     * @param tiles The maze in integer array representation.
+     */
+    private void startGame(long seed, int[][] tiles) {
+        currentSeed = seed;
+        this.setScreen(new GameScreen(this, new Maze(tiles, mazeSize, seed)));
         if (menuScreen != null) {
             menuScreen.dispose();
             menuScreen = null;
@@ -99,16 +149,73 @@ public void goToGame() {
     }
 
     /**
-     * Restarts the game using the same maze.
+     * Returns the seed of the maze of the current game.
+     * @return The seed.
+     */
+    public long getCurrentSeed() {
+        return currentSeed;
+    }
+
+    /**
+     * Sets the seed of the maze of the current game, when a game is continued from a save game.
+     * @param seed The seed the maze was generated from.
+     */
+    void setCurrentSeed(long seed) {
+        this.currentSeed = seed;
+    }
+
+    /**
+     * Restarts the game using the same maze, which is looked up in the cache by its seed.
      */
     public void restartGame() {
-        this.setScreen(new GameScreen(this));
+        Maze maze = new Maze(mazeCache.get(currentSeed, mazeSize, difficulty), mazeSize, currentSeed);
+        this.setScreen(new GameScreen(this, maze));
         if (menuScreen != null) {
             menuScreen.dispose();
             menuScreen = null;
         }
     }
 
+    /**
+     * Saves the state of a running game. The state is captured immediately and written to disk in the background,
+     * so that saving does not stall the game.
+     * @param screen The game screen of the running game.
+     */
+    public void saveGame(GameScreen screen) {
+        try {
+            byte[] save = SaveGame.capture(screen, difficulty, currentSeed);
+            saveWriter.execute(() -> SaveGame.writeFile(save, SAVE_FILE));
+        } catch (IOException e) {
+            System.out.println("Game could not be saved: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Continues the saved game, see {@link #saveGame(GameScreen)}.
+     */
+    public void loadGame() {
+        GameScreen screen;
+        try (InputStream in = new FileInputStream(SAVE_FILE)) {
+            screen = SaveGame.read(this, in);
+        } catch (IOException e) {
+            System.out.println("Saved game could not be loaded: " + e.getMessage());
+            return;
+        }
+        this.setScreen(screen);
+        if (menuScreen != null) {
+            menuScreen.dispose();
+            menuScreen = null;
+        }
+    }
+
+    /**
+     * Returns whether there is a saved game that can be continued.
+     * @return true if a saved game exists, otherwise false.
+     */
+    public boolean hasSavedGame() {
+        return new File(SAVE_FILE).isFile();
+    }
+
     public FontManager getFontManager() {
         return fontManager;
     }
@@ -132,6 +239,9 @@ public void dispose() {
         if (fontManager != null) {
             fontManager.dispose();
         }
+        saveWriter.shutdown();
+        cacheWriter.shutdown();
+        mazePool.shutdown();
         super.dispose();
     }
 
@@ -84,6 +84,7 @@ private void createMazeSizeSelection(Label.LabelStyle titleStyle, TextButton.Tex
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setMazeSize(75);
+                game.prepareMazes();
                 game.setScreen(new BriefingScreen(game));
             }
         });
@@ -94,6 +95,7 @@ public void changed(ChangeEvent event, Actor actor) {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setMazeSize(101);
+                game.prepareMazes();
                 game.setScreen(new BriefingScreen(game));
             }
         });
@@ -104,6 +106,7 @@ public void changed(ChangeEvent event, Actor actor) {
             @Override
             public void changed(ChangeEvent event, Actor actor) {
                 game.setMazeSize(125);
+                game.prepareMazes();
                 game.setScreen(new BriefingScreen(game));
             }
         });
@@ -0,0 +1,68 @@
+package de.tum.cit.fop.maze;
+
+/**
+ * An immutable view of the tiles of a maze at one version. Snapshots are published by the render thread and can be
+ * queried from any thread without locking, e.g. to run pathfinding or analysis in the background.
+ */
+public final class MazeSnapshot {
+    private final TileStore tiles;
+    private final long version;
+    private final boolean gatesOpen;
+
+    /**
+     * Constructor for MazeSnapshot.
+     * @param tiles A read-only snapshot of the tile layer.
+     * @param version The version of the maze the snapshot was taken at.
+     * @param gatesOpen Whether the exit gates were open at that version.
+     */
+    MazeSnapshot(TileStore tiles, long version, boolean gatesOpen) {
+        this.tiles = tiles;
+        this.version = version;
+        this.gatesOpen = gatesOpen;
+    }
+
+    /**
+     * Returns the tile type at a given position.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The tile type, or TileStore.NONE if there is no tile at the position.
+     */
+    public int getTile(int x, int y) {
+        return tiles.get(x, y);
+    }
+
+    /**
+     * Checks whether enemies can walk on a given tile.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return true if there is a tile at the position and it is not a wall, otherwise false.
+     */
+    public boolean isWalkable(int x, int y) {
+        int tile = tiles.get(x, y);
+        return tile != 0 && tile != TileStore.NONE;
+    }
+
+    /**
+     * Returns the read-only tile layer of the snapshot.
+     * @return The tiles of the snapshot.
+     */
+    public TileStore getTiles() {
+        return tiles;
+    }
+
+    /**
+     * Returns the version of the maze the snapshot was taken at.
+     * @return The version of the snapshot.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns whether the exit gates were open when the snapshot was taken.
+     * @return true if the gates were open, otherwise false.
+     */
+    public boolean areGatesOpen() {
+        return gatesOpen;
+    }
+}
@@ -108,6 +108,17 @@ public void changed(ChangeEvent event, Actor actor) {
         });
         table.add(goToGameButton).width(300).padBottom(20).row();
 
+        if (game.hasSavedGame()) {
+            TextButton loadGameButton = new TextButton("Continue", skin);
+            loadGameButton.addListener(new ChangeListener() {
+                @Override
+                public void changed(ChangeEvent event, Actor actor) {
+                    game.loadGame();
+                }
+            });
+            table.add(loadGameButton).width(300).padBottom(20).row();
+        }
+
         TextButton muteButton = new TextButton("Mute", skin);
         muteButton.addListener(new ChangeListener() {
             @Override
@@ -0,0 +1,91 @@
+package de.tum.cit.fop.maze;
+
+/**
+ * Counts for every cell of a maze in integer array representation how many of its eight neighbours have a given
+ * tile type. All counts are computed in one sliding-window pass over the maze and then kept up to date when cells
+ * are changed through {@link #set(int, int, int)}, so that reading a count is a single array access. Like
+ * Maze.countSurroundingTiles, cells in the first row and column are never counted as neighbours.
+ */
+public class NeighbourCounts {
+    private final int[][] maze;
+    private final int type;
+    private final int rows;
+    private final int cols;
+    private final byte[] counts;
+
+    /**
+     * Constructor for NeighbourCounts. Computes the counts for the whole maze.
+     * @param maze The maze in integer array representation, indexed as maze[y][x].
+     * @param type The tile type to count.
+     */
+    public NeighbourCounts(int[][] maze, int type) {
+        this.maze = maze;
+        this.type = type;
+        rows = maze.length;
+        cols = maze[0].length;
+        counts = new byte[rows * cols];
+
+        // column[x] holds the number of counted cells at x in the rows y - 1, y and y + 1
+        int[] column = new int[cols];
+        for (int x = 0; x < cols; x++) {
+            column[x] = counted(x, 0) + counted(x, 1);
+        }
+        for (int y = 0; y < rows; y++) {
+            if (y > 0) {
+                for (int x = 0; x < cols; x++) {
+                    column[x] += counted(x, y + 1) - counted(x, y - 2);
+                }
+            }
+            int window = column[0] + (cols > 1 ? column[1] : 0);
+            for (int x = 0; x < cols; x++) {
+                counts[y * cols + x] = (byte) (window - counted(x, y));
+                window += (x + 2 < cols ? column[x + 2] : 0) - (x > 0 ? column[x - 1] : 0);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a cell counts as a neighbour of the counted type.
+     * @param x The x position of the cell.
+     * @param y The y position of the cell.
+     * @return 1 if the cell lies in the maze outside the first row and column and has the counted type, otherwise 0.
+     */
+    private int counted(int x, int y) {
+        return x > 0 && y > 0 && x < cols && y < rows && maze[y][x] == type ? 1 : 0;
+    }
+
+    /**
+     * Returns the number of neighbours of a cell that have the counted type.
+     * @param x The x position of the cell.
+     * @param y The y position of the cell.
+     * @return The number of neighbours with the counted type, or 0 if the cell lies outside the maze.
+     */
+    public int get(int x, int y) {
+        if (x < 0 || y < 0 || x >= cols || y >= rows) {
+            return 0;
+        }
+        return counts[y * cols + x];
+    }
+
+    /**
+     * Changes a cell of the maze and updates the counts of its neighbours.
+     * @param x The x position of the cell.
+     * @param y The y position of the cell.
+     * @param value The new tile type of the cell.
+     */
+    public void set(int x, int y, int value) {
+        int before = counted(x, y);
+        maze[y][x] = value;
+        int delta = counted(x, y) - before;
+        if (delta == 0) {
+            return;
+        }
+        for (int ny = Math.max(y - 1, 0); ny <= Math.min(y + 1, rows - 1); ny++) {
+            for (int nx = Math.max(x - 1, 0); nx <= Math.min(x + 1, cols - 1); nx++) {
+                if (nx != x || ny != y) {
+                    counts[ny * cols + nx] += (byte) delta;
+                }
+            }
+        }
+    }
+}
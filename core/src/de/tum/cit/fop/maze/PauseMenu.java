@@ -82,6 +82,16 @@ public void clicked(InputEvent event, float x, float y) {
             }
         });
 
+        TextButton saveButton = new TextButton("Save game", skin);
+        saveButton.getLabel().setFontScale(1.2f);
+        saveButton.addListener(new ClickListener() {
+            @Override
+            public void clicked(InputEvent event, float x, float y) {
+                game.saveGame(gameScreen);
+                saveButton.setText("Saved");
+            }
+        });
+
         TextButton mainMenuButton = new TextButton("Return to main menu", skin);
         mainMenuButton.getLabel().setFontScale(1.2f);
         mainMenuButton.addListener(new ClickListener() {
@@ -121,6 +131,8 @@ public void clicked(InputEvent event, float x, float y) {
         table.add(titleLabel).padBottom(40).row();
         table.add(resumeButton).uniform().pad(10);
         table.row();
+        table.add(saveButton).uniform().pad(10);
+        table.row();
         table.add(muteButton).uniform().pad(10);
         table.row();
         table.add(mainMenuButton).uniform().pad(10);
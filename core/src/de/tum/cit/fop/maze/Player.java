@@ -10,15 +10,20 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 /**
  * The player character.
  */
 public class Player {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     private int x;
     private int y;
     private int dir;
@@ -28,11 +33,11 @@ public class Player {
     private final List<Animation<TextureRegion>> characterAnimation;
     private Animation<TextureRegion> explosionAnimation;
     private final Maze maze;
+    private final FlowField flowField;
     private final List<Item> inventory;
     private int health;
     private int stamina;
     private boolean running_cooldown;
-    private boolean exitOpen;
     private float frameCounter;
     private final int[] DX = {0, 1, 0, -1};
     private final int[] DY = {-1, 0, 1, 0};
@@ -68,11 +73,11 @@ public Player(Maze maze) {
         inventory = new ArrayList<>();
         loadAssets();
         this.maze = maze;
-        for (var entry : maze.getMazeMap().entrySet()) {
-            if (entry.getValue().equals(4)) {
-                x = entry.getKey().x * GameScreen.tileSize + GameScreen.tileSize / 2;
-                y = entry.getKey().y * GameScreen.tileSize + GameScreen.tileSize / 2;;
-            }
+        flowField = new FlowField(maze);
+        long entrance = maze.findEntrance();
+        if (entrance != -1) {
+            x = TileCoord.x(entrance) * GameScreen.tileSize + GameScreen.tileSize / 2;
+            y = TileCoord.y(entrance) * GameScreen.tileSize + GameScreen.tileSize / 2;
         }
         baseSpeed = GameScreen.tileSize * 9;
         stamina = MAX_STAMINA;
@@ -235,16 +240,10 @@ public boolean takeInput(float delta) {
      */
     private boolean wallCollision(int x, int y) {
         int tileSize = GameScreen.tileSize;
-        Point[] points = {
-                new Point(x / tileSize, y / tileSize),
-                new Point((x + tileSize / 4) / tileSize, y / tileSize),
-                new Point((x - tileSize / 4) / tileSize, y / tileSize),
-                new Point(x / tileSize, (y + tileSize / 8) / tileSize),
-                new Point(x / tileSize, (y - tileSize / 8) / tileSize)
-        };
-        return Arrays.stream(points)
-                .anyMatch(point -> maze.getMazeMap().containsKey(point)
-                && (maze.getMazeMap().get(point) == 0 || (maze.getMazeMap().get(point) == 2 && !exitOpen)));
+        int tileX = x / tileSize;
+        int tileY = y / tileSize;
+        return maze.isBlocked((x - tileSize / 4) / tileSize, tileY, (x + tileSize / 4) / tileSize, tileY)
+                || maze.isBlocked(tileX, (y - tileSize / 8) / tileSize, tileX, (y + tileSize / 8) / tileSize);
     }
 
     /**
@@ -379,6 +378,14 @@ public int getY() {
         return y;
     }
 
+    /**
+     * Returns the flow field leading to the player, shared by all enemies chasing the player.
+     * @return The flow field. Its users update it with the current tile of the player.
+     */
+    public FlowField getFlowField() {
+        return flowField;
+    }
+
     /**
      * Returns the key.
      * @return The key Item, null if the player does not have a key.
@@ -391,7 +398,7 @@ public Item getKey() {
      * Allows the player to traverse the exit gate and leave the maze.
      */
     public void allowExit() {
-        exitOpen = true;
+        maze.openGates();
     }
 
     /**
@@ -455,6 +462,66 @@ public void dispose() {
         }
     }
 
+    /**
+     * Writes the state of the player, including an active bomb, to a save game, see {@link SaveGame}.
+     * @param out The stream to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeByte(dir);
+        out.writeInt(health);
+        out.writeInt(stamina);
+        out.writeBoolean(running_cooldown);
+        out.writeInt(score);
+        out.writeFloat(boostDuration);
+        out.writeBoolean(shield != null);
+        out.writeFloat(shieldTime);
+        out.writeBoolean(key != null);
+        out.writeBoolean(dead);
+        out.writeBoolean(victory);
+        out.writeByte(inventory.size());
+        for (Item item : inventory) {
+            out.writeByte(item.getType().ordinal());
+        }
+        out.writeBoolean(bomb != null);
+        if (bomb != null) {
+            bomb.writeState(out);
+        }
+    }
+
+    /**
+     * Restores the state of the player from a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public void readState(DataInputStream in, int version) throws IOException {
+        if (version < 1 || version > STATE_VERSION) {
+            throw new IOException("Unsupported player state version " + version);
+        }
+        x = in.readInt();
+        y = in.readInt();
+        dir = in.readUnsignedByte() & 3;
+        health = in.readInt();
+        stamina = in.readInt();
+        running_cooldown = in.readBoolean();
+        score = in.readInt();
+        boostDuration = in.readFloat();
+        shield = in.readBoolean() ? new Item(Item.types.SHIELD) : null;
+        shieldTime = in.readFloat();
+        key = in.readBoolean() ? new Item(Item.types.KEY) : null;
+        dead = in.readBoolean();
+        victory = in.readBoolean();
+        inventory.clear();
+        int items = in.readUnsignedByte();
+        for (int i = 0; i < items; i++) {
+            inventory.add(new Item(Item.readType(in)));
+        }
+        bomb = in.readBoolean() ? Bomb.readState(in, maze, bombUseSound) : null;
+    }
+
     /**
      * Returns whether the player is dead.
      * @return true if the player is dead, otherwise false.
@@ -0,0 +1,83 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Random;
+
+/**
+ * Carves mazes with a randomized version of Prim's algorithm. The maze grows from a single cell by repeatedly
+ * taking a random cell from the frontier, the cells next to the maze, and connecting it to a random neighbour that
+ * is already part of the maze. The mazes branch a lot and have many short dead ends radiating from the start.
+ */
+public class PrimGenerator implements MazeGenerator {
+    private static final byte OUTSIDE = 0;
+    private static final byte FRONTIER = 1;
+    private static final byte INSIDE = 2;
+
+    @Override
+    public void carve(int[][] maze, int minX, int minY, int maxX, int maxY, Random random) {
+        int width = (maxX - minX) / 2 + 1;
+        int height = (maxY - minY) / 2 + 1;
+        int cells = width * height;
+        byte[] state = new byte[cells];
+        int[] frontier = new int[cells];
+        int size = 0;
+        int[] candidates = new int[4];
+
+        int cell = random.nextInt(cells);
+        while (true) {
+            state[cell] = INSIDE;
+            maze[minY + cell / width * 2][minX + cell % width * 2] = PATH;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbour(cell, dir, width, height);
+                if (next >= 0 && state[next] == OUTSIDE) {
+                    state[next] = FRONTIER;
+                    frontier[size++] = next;
+                }
+            }
+            if (size == 0) {
+                return;
+            }
+
+            int i = random.nextInt(size);
+            cell = frontier[i];
+            frontier[i] = frontier[--size];
+
+            int count = 0;
+            for (int dir = 0; dir < 4; dir++) {
+                int next = neighbour(cell, dir, width, height);
+                if (next >= 0 && state[next] == INSIDE) {
+                    candidates[count++] = dir;
+                }
+            }
+            int x = minX + cell % width * 2;
+            int y = minY + cell / width * 2;
+            switch (candidates[random.nextInt(count)]) {
+                case 0 -> maze[y][x - 1] = PATH;
+                case 1 -> maze[y][x + 1] = PATH;
+                case 2 -> maze[y - 1][x] = PATH;
+                default -> maze[y + 1][x] = PATH;
+            }
+        }
+    }
+
+    /**
+     * Returns the neighbour of a cell in a given direction.
+     * @param cell The index of the cell.
+     * @param dir The direction: 0 left, 1 right, 2 up or 3 down.
+     * @param width The number of cell columns.
+     * @param height The number of cell rows.
+     * @return The index of the neighbour, or -1 if there is no cell in that direction.
+     */
+    private static int neighbour(int cell, int dir, int width, int height) {
+        return switch (dir) {
+            case 0 -> cell % width > 0 ? cell - 1 : -1;
+            case 1 -> cell % width < width - 1 ? cell + 1 : -1;
+            case 2 -> cell >= width ? cell - width : -1;
+            default -> cell < (height - 1) * width ? cell + width : -1;
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "Prim";
+    }
+}
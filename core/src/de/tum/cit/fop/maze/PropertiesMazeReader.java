@@ -0,0 +1,264 @@
+package de.tum.cit.fop.maze;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A streaming reader for mazes saved as java properties files, with one "x,y=value" entry per tile. The stream is
+ * scanned once without building a Properties table or creating Strings. Comments, line continuations, the
+ * separators '=', ':' and whitespace, and escape sequences are handled like {@link java.util.Properties#load}.
+ * Entries whose key is not a pair of integers are skipped.
+ */
+public final class PropertiesMazeReader {
+    /**
+     * Callback used to report the entries of a maze file.
+     */
+    public interface EntryVisitor {
+        /**
+         * Called for every tile entry in the order in which the entries appear in the file.
+         * @param x The x position of the tile.
+         * @param y The y position of the tile.
+         * @param value The tile value.
+         */
+        void visit(int x, int y, int value);
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final int EOF = -1;
+    private static final int LINE_END = -2;
+    private static final int NO_PUSHBACK = -3;
+    private static final int ESCAPED = 0x10000;
+    private static final long INVALID = Long.MIN_VALUE;
+    private final InputStream in;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private int pushback = NO_PUSHBACK;
+    private char[] key = new char[16];
+    private char[] value = new char[16];
+
+    /**
+     * Constructor for PropertiesMazeReader.
+     * @param in The stream containing the properties file.
+     */
+    private PropertiesMazeReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads all tile entries of a properties file.
+     * @param in The stream containing the properties file, encoded in ISO 8859-1. It is not closed.
+     * @param visitor The callback to invoke for every tile entry.
+     * @throws IOException If reading fails, an escape sequence is malformed or a tile value is not an integer.
+     */
+    public static void read(InputStream in, EntryVisitor visitor) throws IOException {
+        new PropertiesMazeReader(in).parse(visitor);
+    }
+
+    /**
+     * Parses the stream line by line, skipping blank lines and comments.
+     * @param visitor The callback to invoke for every tile entry.
+     * @throws IOException If reading fails or the file is malformed.
+     */
+    private void parse(EntryVisitor visitor) throws IOException {
+        while (true) {
+            int c = nextByte();
+            while (isWhitespace(c) || c == '\r' || c == '\n') {
+                c = nextByte();
+            }
+            if (c == EOF) {
+                return;
+            }
+            if (c == '#' || c == '!') {
+                while (c != EOF && c != '\r' && c != '\n') {
+                    c = nextByte();
+                }
+                continue;
+            }
+            pushback = c;
+            parseEntry(visitor);
+        }
+    }
+
+    /**
+     * Parses one logical line holding a key and a value, and reports it if the key is a tile position.
+     * @param visitor The callback to invoke if the entry is a tile.
+     * @throws IOException If reading fails or the tile value is not an integer.
+     */
+    private void parseEntry(EntryVisitor visitor) throws IOException {
+        int keyLength = 0;
+        int c = nextChar();
+        while (c != EOF && c != LINE_END && c != '=' && c != ':' && !isWhitespace(c)) {
+            key = append(key, keyLength++, c);
+            c = nextChar();
+        }
+        while (isWhitespace(c)) {
+            c = nextChar();
+        }
+        if (c == '=' || c == ':') {
+            c = nextChar();
+            while (isWhitespace(c)) {
+                c = nextChar();
+            }
+        }
+        int valueLength = 0;
+        while (c != EOF && c != LINE_END) {
+            value = append(value, valueLength++, c);
+            c = nextChar();
+        }
+
+        int comma = 0;
+        while (comma < keyLength && key[comma] != ',') {
+            comma++;
+        }
+        long x = parseInt(key, 0, comma);
+        long y = parseInt(key, comma + 1, keyLength);
+        if (comma == keyLength || x == INVALID || y == INVALID) {
+            return;
+        }
+        long tile = parseInt(value, 0, valueLength);
+        if (tile == INVALID) {
+            throw new IOException("Invalid tile value at " + x + "," + y);
+        }
+        visitor.visit((int) x, (int) y, (int) tile);
+    }
+
+    /**
+     * Returns the next character of the current logical line with escape sequences and line continuations resolved.
+     * @return The character, with the ESCAPED bit set if it was escaped, LINE_END at the end of the line or EOF.
+     * @throws IOException If reading fails or a unicode escape is malformed.
+     */
+    private int nextChar() throws IOException {
+        while (true) {
+            int c = nextByte();
+            if (c == '\r' || c == '\n') {
+                return LINE_END;
+            }
+            if (c != '\\') {
+                return c;
+            }
+            c = nextByte();
+            switch (c) {
+                case EOF:
+                    return EOF;
+                case '\r':
+                case '\n':
+                    int next = nextByte();
+                    if (c == '\r' && next == '\n') {
+                        next = nextByte();
+                    }
+                    while (isWhitespace(next)) {
+                        next = nextByte();
+                    }
+                    pushback = next;
+                    continue;
+                case 'u':
+                    return readUnicode() | ESCAPED;
+                case 't':
+                    return '\t' | ESCAPED;
+                case 'n':
+                    return '\n' | ESCAPED;
+                case 'r':
+                    return '\r' | ESCAPED;
+                case 'f':
+                    return '\f' | ESCAPED;
+                default:
+                    return c | ESCAPED;
+            }
+        }
+    }
+
+    /**
+     * Reads the four hexadecimal digits of a unicode escape.
+     * @return The escaped character.
+     * @throws IOException If reading fails or the digits are malformed.
+     */
+    private int readUnicode() throws IOException {
+        int result = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(nextByte(), 16);
+            if (digit < 0) {
+                throw new IOException("Malformed \\uxxxx encoding");
+            }
+            result = (result << 4) | digit;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the next byte of the stream, refilling the buffer when it is used up.
+     * @return The byte as an unsigned value, or EOF at the end of the stream.
+     * @throws IOException If reading fails.
+     */
+    private int nextByte() throws IOException {
+        if (pushback != NO_PUSHBACK) {
+            int c = pushback;
+            pushback = NO_PUSHBACK;
+            return c;
+        }
+        if (position == limit) {
+            limit = in.read(buffer);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return EOF;
+            }
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    /**
+     * Checks whether a character separates keys and values. Escaped characters never do.
+     * @param c The character as returned by nextChar or nextByte.
+     * @return true if the character is a space, tab or form feed, otherwise false.
+     */
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * Appends a character to a reusable buffer, growing it if necessary.
+     * @param chars The buffer.
+     * @param length The number of characters already in the buffer.
+     * @param c The character to append, possibly with the ESCAPED bit set.
+     * @return The buffer, or a larger copy of it.
+     */
+    private static char[] append(char[] chars, int length, int c) {
+        if (length == chars.length) {
+            chars = Arrays.copyOf(chars, length * 2);
+        }
+        chars[length] = (char) c;
+        return chars;
+    }
+
+    /**
+     * Parses a decimal integer with an optional sign, like Integer.parseInt.
+     * @param chars The characters to parse.
+     * @param from The index of the first character, inclusive.
+     * @param to The index of the last character, exclusive.
+     * @return The parsed number, or INVALID if the characters are not an int.
+     */
+    private static long parseInt(char[] chars, int from, int to) {
+        boolean negative = from < to && chars[from] == '-';
+        if (from < to && (chars[from] == '-' || chars[from] == '+')) {
+            from++;
+        }
+        if (from >= to) {
+            return INVALID;
+        }
+        long result = 0;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            result = result * 10 + (c - '0');
+            if (result > (long) Integer.MAX_VALUE + 1) {
+                return INVALID;
+            }
+        }
+        result = negative ? -result : result;
+        return result > Integer.MAX_VALUE ? INVALID : result;
+    }
+}
@@ -0,0 +1,204 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+
+/**
+ * Answers connectivity questions on a maze with a flood fill over row bitsets, like those of {@link TileMask}.
+ * Instead of visiting tiles one by one, a row is filled 64 tiles at a time: within a word, a carry rippling through a
+ * run of open tiles fills the run upwards from its lowest reached tile, and the same on the bit-reversed word fills it
+ * downwards. Reached bits spill into the open bits of the rows above and below, and rows are filled again until no
+ * row changes anymore. Only rows next to a changed row are revisited, so the cost follows the number of times the
+ * passages of the maze turn between rows rather than the number of tiles.
+ */
+public class Reachability {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[] open;
+    private final long[] reached;
+    private final int[] rows;
+    private final boolean[] queued;
+
+    /**
+     * Constructor for Reachability.
+     * @param passable A mask with the bits of all tiles that can be walked on set. It is copied, so later changes do
+     *                 not affect this instance.
+     */
+    public Reachability(TileMask passable) {
+        width = passable.getWidth();
+        height = passable.getHeight();
+        wordsPerRow = passable.getWordsPerRow();
+        open = new long[wordsPerRow * height];
+        reached = new long[wordsPerRow * height];
+        rows = new int[height];
+        queued = new boolean[height];
+        for (int y = 0; y < height; y++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                open[y * wordsPerRow + i] = passable.getWord(y, i);
+            }
+        }
+    }
+
+    /**
+     * Creates the reachability of a generated maze, where every tile that is not a wall can be walked on.
+     * @param maze The maze in integer array representation, indexed by row first.
+     * @return The reachability of the maze.
+     */
+    public static Reachability of(int[][] maze) {
+        TileMask passable = new TileMask(maze[0].length, maze.length);
+        for (int y = 0; y < maze.length; y++) {
+            for (int x = 0; x < maze[y].length; x++) {
+                if (maze[y][x] != MazeGenerator.WALL) {
+                    passable.set(x, y, true);
+                }
+            }
+        }
+        return new Reachability(passable);
+    }
+
+    /**
+     * Creates the reachability of a maze in its current state, where walls and closed gates block the way.
+     * @param maze The maze.
+     * @return The reachability of the maze.
+     */
+    public static Reachability of(Maze maze) {
+        TileMask walls = maze.getWalls();
+        TileMask gates = maze.getGates();
+        TileMask passable = new TileMask(walls.getWidth(), walls.getHeight());
+        int rest = walls.getWidth() & 63;
+        long last = rest == 0 ? -1L : (1L << rest) - 1;
+        for (int y = 0; y < walls.getHeight(); y++) {
+            for (int i = 0; i < walls.getWordsPerRow(); i++) {
+                long word = ~(walls.getWord(y, i) | gates.getWord(y, i));
+                passable.setWord(y, i, i == walls.getWordsPerRow() - 1 ? word & last : word);
+            }
+        }
+        return new Reachability(passable);
+    }
+
+    /**
+     * Returns all tiles that can be reached from a given tile.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return A mask with the bits of all tiles connected to the given one set, or no bits set if the tile itself
+     *         cannot be walked on.
+     */
+    public TileMask component(int x, int y) {
+        fill(x, y, -1, -1);
+        TileMask component = new TileMask(width, height);
+        for (int row = 0; row < height; row++) {
+            for (int i = 0; i < wordsPerRow; i++) {
+                component.setWord(row, i, reached[row * wordsPerRow + i]);
+            }
+        }
+        return component;
+    }
+
+    /**
+     * Checks whether one tile can be reached from another. The flood fill stops as soon as the target is reached.
+     * @param fromX The x position of the tile to start from.
+     * @param fromY The y position of the tile to start from.
+     * @param toX The x position of the target tile.
+     * @param toY The y position of the target tile.
+     * @return true if there is a way between the tiles, otherwise false.
+     */
+    public boolean isReachable(int fromX, int fromY, int toX, int toY) {
+        return fill(fromX, fromY, toX, toY);
+    }
+
+    /**
+     * Fills the reached bits from a tile until no row changes anymore or a target tile is reached.
+     * @param x The x position of the tile to start from.
+     * @param y The y position of the tile to start from.
+     * @param targetX The x position of the target tile, or -1 to fill the whole component.
+     * @param targetY The y position of the target tile, or -1 to fill the whole component.
+     * @return true if the target was reached, otherwise false.
+     */
+    private boolean fill(int x, int y, int targetX, int targetY) {
+        Arrays.fill(reached, 0);
+        if (x < 0 || x >= width || y < 0 || y >= height
+                || (open[y * wordsPerRow + (x >>> 6)] & (1L << x)) == 0) {
+            return false;
+        }
+        reached[y * wordsPerRow + (x >>> 6)] = 1L << x;
+        boolean hasTarget = targetX >= 0 && targetX < width && targetY >= 0 && targetY < height;
+        int targetIndex = hasTarget ? targetY * wordsPerRow + (targetX >>> 6) : 0;
+        long targetBit = hasTarget ? 1L << targetX : 0;
+
+        int head = 0;
+        int count = 0;
+        for (int row = Math.max(y - 1, 0); row <= Math.min(y + 1, height - 1); row++) {
+            rows[(head + count++) % height] = row;
+            queued[row] = true;
+        }
+        while (count > 0) {
+            int row = rows[head];
+            head = (head + 1) % height;
+            count--;
+            queued[row] = false;
+            if (!fillRow(row)) {
+                continue;
+            }
+            if ((reached[targetIndex] & targetBit) != 0) {
+                clearQueue(head, count);
+                return true;
+            }
+            for (int next = row - 1; next <= row + 1; next += 2) {
+                if (next >= 0 && next < height && !queued[next]) {
+                    rows[(head + count++) % height] = next;
+                    queued[next] = true;
+                }
+            }
+        }
+        return hasTarget && (reached[targetIndex] & targetBit) != 0;
+    }
+
+    /**
+     * Fills a row from its reached bits and those of the rows above and below it.
+     * @param y The row to fill.
+     * @return true if new bits were reached, otherwise false.
+     */
+    private boolean fillRow(int y) {
+        int start = y * wordsPerRow;
+        boolean changed = false;
+        long carry = 0;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long o = open[start + i];
+            long seed = reached[start + i] | carry;
+            if (y > 0) {
+                seed |= reached[start - wordsPerRow + i];
+            }
+            if (y < height - 1) {
+                seed |= reached[start + wordsPerRow + i];
+            }
+            seed &= o;
+            // adding the seed to the open bits carries through each run up to its end, flipping the bits on the way
+            seed |= ((o + seed) ^ o) & o;
+            carry = seed >>> 63;
+            changed |= seed != reached[start + i];
+            reached[start + i] = seed;
+        }
+        carry = 0;
+        for (int i = wordsPerRow - 1; i >= 0; i--) {
+            long o = Long.reverse(open[start + i]);
+            long seed = (Long.reverse(reached[start + i]) | carry) & o;
+            seed |= ((o + seed) ^ o) & o;
+            carry = seed >>> 63;
+            seed = Long.reverse(seed);
+            changed |= seed != reached[start + i];
+            reached[start + i] = seed;
+        }
+        return changed;
+    }
+
+    /**
+     * Clears the marks of the rows left in the queue when a fill stops early.
+     * @param head The position of the first queued row.
+     * @param count The number of queued rows.
+     */
+    private void clearQueue(int head, int count) {
+        for (int i = 0; i < count; i++) {
+            queued[rows[(head + i) % height]] = false;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package de.tum.cit.fop.maze;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary save game format, holding the full state of a running game. A save game starts with the magic number
+ * "MZSV" and a format version, followed by the difficulty, size and elapsed time of the game, the seed the maze was
+ * generated from, the tiles of the maze as a binary maze file (see {@link MazeFile}), the state of the player and
+ * finally every entity as a type id, a per-type state version, its position and animation time and the state
+ * written by {@link Entity#writeState(DataOutputStream)}.
+ */
+public final class SaveGame {
+    /**
+     * The magic number at the start of every save game, "MZSV" in ASCII.
+     */
+    public static final int MAGIC = 0x4D5A5356;
+    /**
+     * The version of the file format.
+     */
+    public static final short VERSION = 1;
+    private static final int TREASURE_CHEST = 1;
+    private static final int ENEMY = 2;
+    private static final int LASER_TRAP = 3;
+    private static final int SPIKE_TRAP = 4;
+    private static final int HEALTH_ORB = 5;
+    private static final int EXIT_BARRIER = 6;
+
+    private SaveGame() {
+    }
+
+    /**
+     * Serializes the state of a running game into memory. This is fast enough to be done between two frames, so
+     * that only writing the result to disk has to happen in the background.
+     * @param screen The game screen of the running game.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze was generated from.
+     * @return The save game.
+     * @throws IOException If the state cannot be serialized.
+     */
+    public static byte[] capture(GameScreen screen, float difficulty, long seed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        write(screen, difficulty, seed, bytes);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes the state of a running game.
+     * @param screen The game screen of the running game.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze was generated from.
+     * @param out The stream to write to. It is not closed.
+     * @throws IOException If writing fails.
+     */
+    public static void write(GameScreen screen, float difficulty, long seed, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        Maze maze = screen.getMaze();
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeFloat(difficulty);
+        data.writeInt(maze.getSize());
+        data.writeFloat(screen.getElapsedTime());
+        data.writeBoolean(maze.areGatesOpen());
+        data.writeLong(seed);
+        MazeFile.write(maze.getTiles(), data);
+
+        data.writeShort(Player.STATE_VERSION);
+        screen.getPlayer().writeState(data);
+
+        List<Entity> entities = screen.getEntities();
+        data.writeInt(entities.size());
+        for (Entity entity : entities) {
+            int type;
+            int version;
+            if (entity instanceof TreasureChest) {
+                type = TREASURE_CHEST;
+                version = TreasureChest.STATE_VERSION;
+            } else if (entity instanceof Enemy) {
+                type = ENEMY;
+                version = Enemy.STATE_VERSION;
+            } else if (entity instanceof LaserTrap) {
+                type = LASER_TRAP;
+                version = LaserTrap.STATE_VERSION;
+            } else if (entity instanceof SpikeTrap) {
+                type = SPIKE_TRAP;
+                version = SpikeTrap.STATE_VERSION;
+            } else if (entity instanceof HealthOrb) {
+                type = HEALTH_ORB;
+                version = HealthOrb.STATE_VERSION;
+            } else if (entity instanceof ExitBarrier) {
+                type = EXIT_BARRIER;
+                version = ExitBarrier.STATE_VERSION;
+            } else {
+                throw new IOException("No save game format for " + entity.getClass().getSimpleName());
+            }
+            data.writeByte(type);
+            data.writeShort(version);
+            data.writeInt(entity.x);
+            data.writeInt(entity.y);
+            data.writeFloat(entity.frameCounter);
+            entity.writeState(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Rebuilds a running game from a save game, without loading or populating the maze file it was started with.
+     * The difficulty, maze size and seed of the game are set to the saved ones, so that restarting the game
+     * generates the maze again from its seed.
+     * @param game The main game class.
+     * @param in The stream to read from. It is not closed.
+     * @return The game screen of the restored game.
+     * @throws IOException If reading fails or the save game is invalid.
+     */
+    public static GameScreen read(MazeRunnerGame game, InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a save game");
+        }
+        short version = data.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported save game version " + version);
+        }
+        float difficulty = data.readFloat();
+        int size = data.readInt();
+        float elapsed = data.readFloat();
+        boolean gatesOpen = data.readBoolean();
+        long seed = data.readLong();
+        MazeFile.Header header = MazeFile.decodeHeader(ByteBuffer.wrap(data.readNBytes(MazeFile.HEADER_SIZE)));
+        TileStore tiles = Maze.createStore(header.width(), header.height());
+        MazeFile.readBody(data, header, tiles);
+
+        game.setDifficulty(difficulty);
+        game.setMazeSize(size);
+        game.setCurrentSeed(seed);
+        Maze maze = new Maze(tiles, size);
+        if (gatesOpen) {
+            maze.openGates();
+        }
+        GameScreen screen = new GameScreen(game, maze, false);
+        List<Entity> entities = new ArrayList<>();
+        try {
+            Player player = screen.getPlayer();
+            player.readState(data, data.readShort());
+            int count = data.readInt();
+            for (int i = 0; i < count; i++) {
+                int type = data.readUnsignedByte();
+                int typeVersion = data.readShort();
+                int x = data.readInt();
+                int y = data.readInt();
+                float frameCounter = data.readFloat();
+                int tileX = x / GameScreen.tileSize;
+                int tileY = y / GameScreen.tileSize;
+                Entity entity = switch (type) {
+                    case TREASURE_CHEST -> TreasureChest.readState(data, typeVersion, tileX, tileY, player);
+                    case ENEMY -> Enemy.readState(data, typeVersion, tileX, tileY, maze, player, difficulty);
+                    case LASER_TRAP -> LaserTrap.readState(data, typeVersion, tileX, tileY, player, difficulty);
+                    case SPIKE_TRAP -> SpikeTrap.readState(data, typeVersion, tileX, tileY, player, difficulty);
+                    case HEALTH_ORB -> HealthOrb.readState(data, typeVersion, tileX, tileY, player);
+                    case EXIT_BARRIER -> ExitBarrier.readState(data, typeVersion, tileX, tileY, player, screen.getFont());
+                    default -> throw new IOException("Unknown entity type " + type);
+                };
+                entity.x = x;
+                entity.y = y;
+                entity.frameCounter = frameCounter;
+                entities.add(entity);
+            }
+        } catch (IOException e) {
+            for (Entity entity : entities) {
+                entity.dispose();
+            }
+            screen.dispose();
+            throw e;
+        }
+        screen.restore(elapsed, entities);
+        return screen;
+    }
+
+    /**
+     * Writes a captured save game to a file. The file is replaced only once the new save game is complete, so that
+     * a crash while saving keeps the previous save game intact.
+     * @param save The captured save game.
+     * @param filename The name of the file to write.
+     */
+    public static void writeFile(byte[] save, String filename) {
+        Path path = Path.of(filename).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(temp, save);
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("Game could not be saved: " + e.getMessage());
+        }
+    }
+}
@@ -8,12 +8,19 @@
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Array;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 /**
  * A spike trap that can damage the player if stepped on.
  */
 public class SpikeTrap extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     private float timeOffset;
     private float damageCooldown;
     private final float difficulty;
@@ -25,12 +32,13 @@ public class SpikeTrap extends Entity {
      * @param y The y position of the spike trap.
      * @param player The player to interact with.
      * @param difficulty The difficulty modifier of the level.
+     * @param seed The seed of the random timing of the trap.
      */
-    public SpikeTrap(int x, int y, Player player, float difficulty) {
+    public SpikeTrap(int x, int y, Player player, float difficulty, long seed) {
         super(x, y, player);
         this.difficulty = difficulty;
         damageCooldown = 0;
-        timeOffset = new Random().nextFloat(3);
+        timeOffset = new Random(seed).nextFloat(3);
     }
 
     public void loadAssets() {
@@ -74,6 +82,32 @@ public void draw(SpriteBatch batch, float delta) {
         handlePlayer();
     }
 
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeFloat(timeOffset);
+        out.writeFloat(damageCooldown);
+    }
+
+    /**
+     * Creates a spike trap from its state in a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the spike trap.
+     * @param y The y position of the spike trap.
+     * @param player The player to interact with.
+     * @param difficulty The difficulty modifier of the level.
+     * @return The restored spike trap.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public static SpikeTrap readState(DataInputStream in, int version, int x, int y, Player player, float difficulty)
+            throws IOException {
+        checkVersion(version, STATE_VERSION);
+        SpikeTrap trap = new SpikeTrap(x, y, player, difficulty, 0);
+        trap.timeOffset = in.readFloat();
+        trap.damageCooldown = in.readFloat();
+        return trap;
+    }
+
     /**
      * Damages the player character if he steps on the trap when the spikes are up.
      */
@@ -0,0 +1,444 @@
+package de.tum.cit.fop.maze;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates mazes too large to hold in memory, one row at a time, in memory proportional to the width of the maze.
+ * The paths are carved with Eller's algorithm, which only needs to know which cells of the current row are
+ * connected to each other. Every row then passes through a window of WINDOW rows, in which the same rules as in
+ * Maze.generateMaze add openings, remove thin walls and place the entities, before it is written to the target and
+ * forgotten. The entrance, the exit and the key chest are chosen among all candidates by reservoir sampling and
+ * written into the finished rows at the end. Rows are rows of the target, so the generated maze is addressed as
+ * (x, y) like a loaded maze, not as maze[y][x].
+ * Unlike generated mazes, streamed mazes are not flood-checked for a way from the entrance to the exit, since that
+ * needs the whole maze at once. They rely on Eller's algorithm connecting every cell, and on the clean-up only ever
+ * turning walls into paths.
+ */
+public final class StreamingMazeGenerator {
+    private static final int WALL = MazeGenerator.WALL;
+    private static final int PATH = MazeGenerator.PATH;
+    private static final int ENTRANCE = 4;
+    private static final int EXIT = 12;
+    private static final int KEY_CHEST = 24;
+    private static final int WINDOW = 8;
+    private final TileStore target;
+    private final int width;
+    private final int height;
+    private final float difficulty;
+    private final Random random;
+    private final byte[][] window = new byte[WINDOW][];
+
+    // state of Eller's algorithm, one entry per cell column
+    private final int cellCols;
+    private final int cellRows;
+    private int[] sets;
+    private int[] nextSets;
+    private final int[] parent;
+    private final int[] roots;
+    private final int[] remaining;
+    private final int[] firstDown;
+    private final boolean[] down;
+
+    private int entranceCandidates;
+    private int entranceX = -1;
+    private int entranceY = -1;
+    private int fallbackCandidates;
+    private int fallbackX = -1;
+    private int fallbackY = -1;
+    private int exitCandidates;
+    private int exitX = -1;
+    private int exitY = -1;
+    private int chestCount;
+    private int keyChestX = -1;
+    private int keyChestY = -1;
+
+    /**
+     * Constructor for StreamingMazeGenerator.
+     * @param target The store to write the maze to.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze is generated from.
+     */
+    private StreamingMazeGenerator(TileStore target, float difficulty, long seed) {
+        this.target = target;
+        this.difficulty = difficulty;
+        width = target.getWidth();
+        height = target.getHeight();
+        random = new Random(seed);
+        for (int i = 0; i < WINDOW; i++) {
+            window[i] = new byte[width];
+        }
+
+        cellCols = (width - 1) / 2;
+        cellRows = (height - 1) / 2;
+        sets = new int[cellCols];
+        nextSets = new int[cellCols];
+        parent = new int[cellCols];
+        roots = new int[cellCols];
+        remaining = new int[cellCols];
+        firstDown = new int[cellCols];
+        down = new boolean[cellCols];
+        for (int i = 0; i < cellCols; i++) {
+            sets[i] = i;
+        }
+        Arrays.fill(firstDown, -1);
+    }
+
+    /**
+     * Generates a maze into a memory-mapped maze file, see {@link MappedTileStore}.
+     * @param path The path of the file to create. An existing file is overwritten.
+     * @param width The width of the maze.
+     * @param height The height of the maze.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze is generated from.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void generate(Path path, int width, int height, float difficulty, long seed) throws IOException {
+        try (MappedTileStore store = MappedTileStore.create(path, width, height)) {
+            generate(store, difficulty, seed);
+            store.force();
+        }
+    }
+
+    /**
+     * Generates a maze into a store. Rows are written in order from top to bottom, and afterwards only the entrance,
+     * the exit and the key chest are written into rows that have already been written.
+     * @param target The store to write the maze to, at least 5 tiles wide and high.
+     * @param difficulty The difficulty modifier of the game.
+     * @param seed The seed the maze is generated from.
+     * @throws IllegalStateException If the maze has no position for the entrance or the exit, or no treasure
+     *                               chest.
+     */
+    public static void generate(TileStore target, float difficulty, long seed) {
+        new StreamingMazeGenerator(target, difficulty, seed).run();
+    }
+
+    /**
+     * Carves, processes and writes all rows.
+     */
+    private void run() {
+        // step i adds openings to row i and removes thin walls from row i - 2, which needs rows up to i + 1
+        for (int y = 0; y < height; y++) {
+            carveRow(y);
+            if (y >= 2) {
+                step(y - 1);
+            }
+        }
+        step(height - 1);
+        step(height);
+        finish(height - 2);
+        finish(height - 1);
+        checkExit(height - 1);
+        placeEntities(height - 2);
+        placeEntities(height - 1);
+
+        if (entranceX < 0) {
+            entranceX = fallbackX;
+            entranceY = fallbackY;
+        }
+        if (entranceX < 0) {
+            throw new IllegalStateException("Maze has no position for the entrance");
+        }
+        if (exitX < 0) {
+            throw new IllegalStateException("Maze has no position for the exit");
+        }
+        if (keyChestX < 0) {
+            throw new IllegalStateException("Maze has no treasure chest");
+        }
+        target.set(entranceX, entranceY, ENTRANCE);
+        target.set(exitX, exitY, EXIT);
+        target.set(keyChestX, keyChestY, KEY_CHEST);
+    }
+
+    /**
+     * Returns a row of the window.
+     * @param y The y position of the row.
+     * @return The tiles of the row.
+     */
+    private byte[] row(int y) {
+        return window[y & (WINDOW - 1)];
+    }
+
+    /**
+     * Carves the next row of the maze with Eller's algorithm. Odd rows hold the cells and the walls between them,
+     * even rows the walls below the cells of the row above.
+     * @param y The y position of the row.
+     */
+    private void carveRow(int y) {
+        byte[] row = row(y);
+        Arrays.fill(row, (byte) WALL);
+        if (y % 2 == 1 && y / 2 < cellRows) {
+            joinHorizontally(row, y / 2 == cellRows - 1);
+            if (y / 2 < cellRows - 1) {
+                extendDown();
+            }
+        } else if (y % 2 == 0 && y >= 2 && y / 2 - 1 < cellRows - 1) {
+            for (int i = 0; i < cellCols; i++) {
+                if (down[i]) {
+                    row[i * 2 + 1] = PATH;
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the cells of a row and randomly joins neighbouring cells that are not connected yet.
+     * @param row The tiles of the row.
+     * @param last Whether this is the last row of cells, in which all sets have to be joined.
+     */
+    private void joinHorizontally(byte[] row, boolean last) {
+        for (int i = 0; i < cellCols; i++) {
+            parent[sets[i]] = sets[i];
+            row[i * 2 + 1] = PATH;
+        }
+        for (int i = 0; i < cellCols - 1; i++) {
+            int a = find(sets[i]);
+            int b = find(sets[i + 1]);
+            if (a != b && (last || random.nextBoolean())) {
+                parent[b] = a;
+                row[i * 2 + 2] = PATH;
+            }
+        }
+    }
+
+    /**
+     * Randomly connects cells to the row below, at least one of every set, and assigns the sets of the next row.
+     * Cells connected to the row below keep their set, labelled by the first of them, all other cells start a new
+     * set labelled by their own position.
+     */
+    private void extendDown() {
+        for (int i = 0; i < cellCols; i++) {
+            roots[i] = find(sets[i]);
+            remaining[roots[i]]++;
+        }
+        for (int i = 0; i < cellCols; i++) {
+            int root = roots[i];
+            remaining[root]--;
+            down[i] = random.nextBoolean() || (remaining[root] == 0 && firstDown[root] < 0);
+            if (down[i]) {
+                if (firstDown[root] < 0) {
+                    firstDown[root] = i;
+                }
+                nextSets[i] = firstDown[root];
+            } else {
+                nextSets[i] = i;
+            }
+        }
+        for (int i = 0; i < cellCols; i++) {
+            firstDown[roots[i]] = -1;
+        }
+        int[] swap = sets;
+        sets = nextSets;
+        nextSets = swap;
+    }
+
+    /**
+     * Finds the root of the set with a given label, halving the path to it on the way.
+     * @param set The label of the set.
+     * @return The label of the root.
+     */
+    private int find(int set) {
+        while (parent[set] != set) {
+            parent[set] = parent[parent[set]];
+            set = parent[set];
+        }
+        return set;
+    }
+
+    /**
+     * Adds random openings to row i and removes thin walls from row i - 2, like one iteration of the clean-up loop
+     * of Maze.generateMaze. Afterwards row i - 3 does not change anymore and is finished.
+     * @param i The row of the step.
+     */
+    private void step(int i) {
+        if (i < height - 1) {
+            byte[] row = row(i);
+            for (int j = 1; j < width - 1; j++) {
+                if (row[j] == WALL && random.nextInt(8) == 0) {
+                    for (int y = i - 1; y <= i + 1; y++) {
+                        for (int x = j - 1; x <= j + 1; x++) {
+                            if (x > 0 && y > 0 && x < width && y < height) {
+                                row(y)[x] = PATH;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        if (i >= 3 && i - 2 < height - 1) {
+            removeThinWalls(i - 2);
+        }
+        if (i >= 3) {
+            finish(i - 3);
+        }
+    }
+
+    /**
+     * Removes walls in a row that stand alone or form pieces only two tiles long.
+     * @param y The row to process.
+     */
+    private void removeThinWalls(int y) {
+        byte[] row = row(y);
+        for (int x = 1; x < width - 1; x++) {
+            if (row[x] == WALL && countSurrounding(x, y, WALL) == 0) {
+                row[x] = PATH;
+            }
+            if (row[x] == WALL && countSurrounding(x, y, WALL) == 1 && countSurrounding(x - 1, y, WALL) == 1) {
+                row[x] = PATH;
+                row[x - 1] = PATH;
+            }
+            if (row[x] == WALL && countSurrounding(x, y, WALL) == 1 && countSurrounding(x, y - 1, WALL) == 1) {
+                row[x] = PATH;
+                row(y - 1)[x] = PATH;
+            }
+        }
+    }
+
+    /**
+     * Counts the tiles of a type around a given point, skipping the first row and column like
+     * Maze.countSurroundingTiles.
+     * @param x The x position of the point.
+     * @param y The y position of the point.
+     * @param type The tile type to count.
+     * @return The number of tiles of the given type surrounding the point.
+     */
+    private int countSurrounding(int x, int y, int type) {
+        int count = 0;
+        for (int ny = Math.max(y - 1, 1); ny <= Math.min(y + 1, height - 1); ny++) {
+            byte[] row = row(ny);
+            for (int nx = Math.max(x - 1, 1); nx <= Math.min(x + 1, width - 1); nx++) {
+                if ((nx != x || ny != y) && row[nx] == type) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Closes the border of a finished row. Once the row below is finished as well,
+     * exits are looked for in the row above it and entities are placed in the row two above it, which is then
+     * written to the target.
+     * @param y The finished row.
+     */
+    private void finish(int y) {
+        byte[] row = row(y);
+        if (y == 0 || y == height - 1) {
+            Arrays.fill(row, (byte) WALL);
+        }
+        row[0] = WALL;
+        row[width - 1] = WALL;
+        if (y >= 1) {
+            checkExit(y - 1);
+        }
+        if (y >= 2) {
+            placeEntities(y - 2);
+        }
+    }
+
+    /**
+     * Offers every border tile of a row that would be a valid exit as a candidate for the exit. Keeping the n-th
+     * candidate with probability 1 / n picks every valid position with the same probability, like retrying random
+     * border positions until one is valid does.
+     * @param y The row to check. It and both neighbouring rows must be finished and still without entities.
+     */
+    private void checkExit(int y) {
+        boolean border = y == 0 || y == height - 1;
+        for (int x = 0; x < width; x += border ? 1 : width - 1) {
+            if (countSurrounding(x, y, PATH) == 3) {
+                exitCandidates++;
+                if (random.nextInt(exitCandidates) == 0) {
+                    exitX = x;
+                    exitY = y;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds entities such as traps and enemies to a row and writes the row to the target. Unlike Maze.createEntities,
+     * which places them by their distance from the entrance, every tile is rolled on its own, because a streamed maze
+     * is never held as a whole to measure distances in. The key chest is picked among all chests like the exit is
+     * picked among its candidates, and so is the entrance among the path tiles left over, preferring those that do
+     * not touch the border like Maze.generateMaze does.
+     * @param y The row to process. It and both neighbouring rows must be finished.
+     */
+    private void placeEntities(int y) {
+        byte[] row = row(y);
+        byte[] above = y > 0 ? row(y - 1) : null;
+        byte[] below = y < height - 1 ? row(y + 1) : null;
+        for (int x = 0; x < width; x++) {
+            if (row[x] == PATH && countSurrounding(x, y, WALL) >= 7 && random.nextInt(4) == 0) {
+                row[x] = (byte) (20 + random.nextInt(4)); // TreasureChest
+                chestCount++;
+                if (random.nextInt(chestCount) == 0) {
+                    keyChestX = x;
+                    keyChestY = y;
+                }
+            }
+            if (row[x] == PATH && random.nextInt((int) (300 / difficulty)) == 0) {
+                row[x] = 11; // Enemy
+            }
+            if (row[x] == PATH && ((x > 1 && row[x - 1] == WALL && x + 1 < width && row[x + 1] == WALL)
+                    || (y > 1 && above[x] == WALL && below != null && below[x] == WALL))
+                    && random.nextInt((int) (10 / difficulty)) == 0) {
+                row[x] = 13; // LaserTrap
+            }
+            if (row[x] == PATH && random.nextInt((int) (150 / difficulty)) == 0) {
+                row[x] = 14; // spike trap
+            }
+            if (row[x] == PATH && random.nextInt((int) (150 * difficulty)) == 0) {
+                row[x] = 15; // orb
+            }
+            if (row[x] == PATH) {
+                offerEntrance(x, y);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            target.set(x, y, row[x]);
+        }
+    }
+
+    /**
+     * Offers a path tile as a candidate for the entrance. Tiles next to the border are only kept as a fallback, so
+     * that the entrance never blocks the way to the exit.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     */
+    private void offerEntrance(int x, int y) {
+        if (x > 1 && x < width - 2 && y > 1 && y < height - 2) {
+            entranceCandidates++;
+            if (random.nextInt(entranceCandidates) == 0) {
+                entranceX = x;
+                entranceY = y;
+            }
+        } else {
+            fallbackCandidates++;
+            if (random.nextInt(fallbackCandidates) == 0) {
+                fallbackX = x;
+                fallbackY = y;
+            }
+        }
+    }
+
+    /**
+     * Generates a maze file, e.g. for stress tests with mazes larger than the memory.
+     * Usage: StreamingMazeGenerator &lt;file&gt; &lt;width&gt; &lt;height&gt; [difficulty] [seed]
+     * @param args The path of the file to write, the width and height of the maze, and optionally the difficulty
+     *             modifier and the seed.
+     * @throws IOException If writing the file fails.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.out.println("Usage: StreamingMazeGenerator <file> <width> <height> [difficulty] [seed]");
+            return;
+        }
+        float difficulty = args.length > 3 ? Float.parseFloat(args[3]) : 1;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : System.nanoTime();
+        long start = System.nanoTime();
+        generate(Path.of(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]), difficulty, seed);
+        System.out.println("Generated in " + (System.nanoTime() - start) / 1_000_000 + " ms with seed " + seed);
+    }
+}
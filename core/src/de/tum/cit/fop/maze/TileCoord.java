@@ -0,0 +1,101 @@
+package de.tum.cit.fop.maze;
+
+/**
+ * Helpers for tile coordinates packed into a single long, with x in the high 32 bits and y in the low 32 bits.
+ * Packed coordinates need no allocation and can be stored in primitive arrays, compared with == and used as
+ * array indices after unpacking. Both components keep the full range of an int, so every tile of a maze can be
+ * packed regardless of its size.
+ */
+public final class TileCoord {
+    /**
+     * Direction index of the tile to the left.
+     */
+    public static final int LEFT = 0;
+    /**
+     * Direction index of the tile to the right.
+     */
+    public static final int RIGHT = 1;
+    /**
+     * Direction index of the tile below.
+     */
+    public static final int DOWN = 2;
+    /**
+     * Direction index of the tile above.
+     */
+    public static final int UP = 3;
+    private static final int[] DX = {-1, 1, 0, 0};
+    private static final int[] DY = {0, 0, -1, 1};
+
+    private TileCoord() {
+    }
+
+    /**
+     * Packs a tile position into a long.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The packed tile coordinate.
+     */
+    public static long of(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the x position of a packed tile coordinate.
+     * @param tile The packed tile coordinate.
+     * @return The x position.
+     */
+    public static int x(long tile) {
+        return (int) (tile >> 32);
+    }
+
+    /**
+     * Returns the y position of a packed tile coordinate.
+     * @param tile The packed tile coordinate.
+     * @return The y position.
+     */
+    public static int y(long tile) {
+        return (int) tile;
+    }
+
+    /**
+     * Returns the tile next to a given tile.
+     * @param tile The packed tile coordinate.
+     * @param direction One of LEFT, RIGHT, DOWN and UP.
+     * @return The packed coordinate of the neighbouring tile.
+     */
+    public static long neighbour(long tile, int direction) {
+        return of(x(tile) + DX[direction], y(tile) + DY[direction]);
+    }
+
+    /**
+     * Calculates the Manhattan distance between two tiles.
+     * @param a The first packed tile coordinate.
+     * @param b The second packed tile coordinate.
+     * @return The sum of the distances along the x and y axes.
+     */
+    public static int manhattan(long a, long b) {
+        return Math.abs(x(a) - x(b)) + Math.abs(y(a) - y(b));
+    }
+
+    /**
+     * Checks if a tile lies inside an area starting at the origin.
+     * @param tile The packed tile coordinate.
+     * @param width The width of the area.
+     * @param height The height of the area.
+     * @return true if the tile is inside the area, otherwise false.
+     */
+    public static boolean inBounds(long tile, int width, int height) {
+        int x = x(tile);
+        int y = y(tile);
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns a readable representation of a packed tile coordinate.
+     * @param tile The packed tile coordinate.
+     * @return The coordinate in the form "(x,y)".
+     */
+    public static String toString(long tile) {
+        return "(" + x(tile) + "," + y(tile) + ")";
+    }
+}
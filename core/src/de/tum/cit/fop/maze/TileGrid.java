@@ -0,0 +1,107 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size grid of tile values stored row-major in a single byte array, so that a tile lookup is one array
+ * index without allocating or boxing anything.
+ */
+public class TileGrid implements TileStore {
+    private final int width;
+    private final int height;
+    private final byte[] tiles;
+    private final boolean readOnly;
+
+    /**
+     * Constructor for TileGrid. All positions start out empty.
+     * @param width The number of tiles along the x axis.
+     * @param height The number of tiles along the y axis.
+     */
+    public TileGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        tiles = new byte[width * height];
+        readOnly = false;
+        Arrays.fill(tiles, (byte) NONE);
+    }
+
+    /**
+     * Constructor for a read-only copy of a grid.
+     * @param source The grid to copy.
+     */
+    private TileGrid(TileGrid source) {
+        width = source.width;
+        height = source.height;
+        tiles = source.tiles.clone();
+        readOnly = true;
+    }
+
+    /**
+     * Returns the tile value at a given position.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The tile value, or NONE if the position is empty or outside the grid.
+     */
+    @Override
+    public int get(int x, int y) {
+        if (!inBounds(x, y)) {
+            return NONE;
+        }
+        return tiles[y * width + x];
+    }
+
+    /**
+     * Sets the tile value at a given position. Positions outside the grid are ignored.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param value The tile value, or NONE to clear the position.
+     */
+    @Override
+    public void set(int x, int y, int value) {
+        if (readOnly) {
+            throw new UnsupportedOperationException("Tile grid snapshots are read-only");
+        }
+        if (inBounds(x, y)) {
+            tiles[y * width + x] = (byte) value;
+        }
+    }
+
+    /**
+     * Returns a read-only copy of the grid. Grids are only used for small mazes, so copying the whole array is
+     * cheaper than tracking which parts changed.
+     * @return A read-only copy of the grid.
+     */
+    @Override
+    public TileStore snapshot() {
+        return readOnly ? this : new TileGrid(this);
+    }
+
+    /**
+     * Checks if a given position is contained in the grid.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position lies inside the grid, otherwise false.
+     */
+    @Override
+    public boolean inBounds(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height;
+    }
+
+    /**
+     * Returns the width of the grid.
+     * @return The number of tiles along the x axis.
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the grid.
+     * @return The number of tiles along the y axis.
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,177 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Arrays;
+
+/**
+ * A bitset with one bit per maze tile. Every row starts on a new long word, so spans of up to 64 tiles in a row
+ * can be tested with a single masked word comparison. The words of a row are only allocated once a bit in it is
+ * set, so a mask of a huge maze takes memory only for the rows in use.
+ */
+public class TileMask {
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long[][] rows;
+
+    /**
+     * Constructor for TileMask. All bits start out cleared.
+     * @param width The number of tiles along the x axis.
+     * @param height The number of tiles along the y axis.
+     */
+    public TileMask(int width, int height) {
+        this.width = width;
+        this.height = height;
+        wordsPerRow = (width + 63) >>> 6;
+        rows = new long[height][];
+    }
+
+    /**
+     * Returns whether the bit of a given tile is set.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return true if the bit is set, false if it is cleared or the position is outside the mask.
+     */
+    public boolean get(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        long[] row = rows[y];
+        return row != null && (row[x >>> 6] & (1L << x)) != 0;
+    }
+
+    /**
+     * Sets or clears the bit of a given tile. Positions outside the mask are ignored.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param value true to set the bit, false to clear it.
+     */
+    public void set(int x, int y, boolean value) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        long[] row = rows[y];
+        if (row == null) {
+            if (!value) {
+                return;
+            }
+            row = new long[wordsPerRow];
+            rows[y] = row;
+        }
+        if (value) {
+            row[x >>> 6] |= 1L << x;
+        } else {
+            row[x >>> 6] &= ~(1L << x);
+        }
+    }
+
+    /**
+     * Clears all bits, releasing the memory of all rows.
+     */
+    public void clear() {
+        Arrays.fill(rows, null);
+    }
+
+    /**
+     * Checks whether any bit is set in a horizontal span of a row.
+     * @param y The row to check.
+     * @param x0 The x position where the span starts, inclusive.
+     * @param x1 The x position where the span ends, inclusive.
+     * @return true if at least one bit in the span is set, otherwise false.
+     */
+    public boolean anyInRow(int y, int x0, int x1) {
+        if (y < 0 || y >= height || rows[y] == null) {
+            return false;
+        }
+        x0 = Math.max(x0, 0);
+        x1 = Math.min(x1, width - 1);
+        if (x0 > x1) {
+            return false;
+        }
+        long[] row = rows[y];
+        int first = x0 >>> 6;
+        int last = x1 >>> 6;
+        long firstMask = -1L << x0;
+        long lastMask = -1L >>> (63 - (x1 & 63));
+        if (first == last) {
+            return (row[first] & firstMask & lastMask) != 0;
+        }
+        if ((row[first] & firstMask) != 0 || (row[last] & lastMask) != 0) {
+            return true;
+        }
+        for (int i = first + 1; i < last; i++) {
+            if (row[i] != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether any bit is set in a rectangle of tiles.
+     * @param x0 The smallest x position of the rectangle, inclusive.
+     * @param y0 The smallest y position of the rectangle, inclusive.
+     * @param x1 The largest x position of the rectangle, inclusive.
+     * @param y1 The largest y position of the rectangle, inclusive.
+     * @return true if at least one bit in the rectangle is set, otherwise false.
+     */
+    public boolean anyInRect(int x0, int y0, int x1, int y1) {
+        for (int y = Math.max(y0, 0); y <= Math.min(y1, height - 1); y++) {
+            if (anyInRow(y, x0, x1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns a word of a row, holding the bits of 64 consecutive tiles.
+     * @param y The row of the word.
+     * @param wordIndex The index of the word within the row. Bit i holds the tile at x = wordIndex * 64 + i.
+     * @return The word.
+     */
+    public long getWord(int y, int wordIndex) {
+        long[] row = rows[y];
+        return row == null ? 0 : row[wordIndex];
+    }
+
+    /**
+     * Replaces a word of a row, setting the bits of 64 consecutive tiles at once. Bits beyond the width of the mask
+     * must be cleared.
+     * @param y The row of the word.
+     * @param wordIndex The index of the word within the row. Bit i holds the tile at x = wordIndex * 64 + i.
+     * @param word The new word.
+     */
+    public void setWord(int y, int wordIndex, long word) {
+        if (rows[y] == null) {
+            if (word == 0) {
+                return;
+            }
+            rows[y] = new long[wordsPerRow];
+        }
+        rows[y][wordIndex] = word;
+    }
+
+    /**
+     * Returns the number of words used for each row.
+     * @return The number of words per row.
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Returns the width of the mask.
+     * @return The number of tiles along the x axis.
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the mask.
+     * @return The number of tiles along the y axis.
+     */
+    public int getHeight() {
+        return height;
+    }
+}
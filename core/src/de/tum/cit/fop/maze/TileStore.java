@@ -0,0 +1,192 @@
+package de.tum.cit.fop.maze;
+
+import java.awt.Point;
+import java.util.*;
+
+/**
+ * Storage for one layer of maze tiles, addressed by x and y position. Positions without a tile hold {@link #NONE}.
+ */
+public interface TileStore {
+    /**
+     * The value of positions that hold no tile.
+     */
+    int NONE = -1;
+
+    /**
+     * The uniform value reported for chunks that contain more than one tile value.
+     */
+    int MIXED = Integer.MIN_VALUE;
+
+    /**
+     * Callback used to iterate over the chunks of a store.
+     */
+    interface ChunkVisitor {
+        /**
+         * Called once for every chunk overlapping the iterated area, clipped to that area.
+         * @param x0 The smallest x position of the visited tiles, inclusive.
+         * @param y0 The smallest y position of the visited tiles, inclusive.
+         * @param x1 The largest x position of the visited tiles, inclusive.
+         * @param y1 The largest y position of the visited tiles, inclusive.
+         * @param uniform The value shared by all tiles of the chunk, or MIXED if they differ.
+         */
+        void visit(int x0, int y0, int x1, int y1, int uniform);
+    }
+
+    /**
+     * Returns the tile value at a given position.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @return The tile value, or NONE if the position is empty or outside the store.
+     */
+    int get(int x, int y);
+
+    /**
+     * Sets the tile value at a given position. Positions outside the store are ignored.
+     * Snapshots are read-only and throw an UnsupportedOperationException instead.
+     * @param x The x position of the tile.
+     * @param y The y position of the tile.
+     * @param value The tile value, or NONE to clear the position.
+     */
+    void set(int x, int y, int value);
+
+    /**
+     * Returns the width of the store.
+     * @return The number of tiles along the x axis.
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the store.
+     * @return The number of tiles along the y axis.
+     */
+    int getHeight();
+
+    /**
+     * Checks if a given position is contained in the store.
+     * @param x The x position.
+     * @param y The y position.
+     * @return true if the position lies inside the store, otherwise false.
+     */
+    default boolean inBounds(int x, int y) {
+        return x >= 0 && x < getWidth() && y >= 0 && y < getHeight();
+    }
+
+    /**
+     * Returns an immutable copy of the current contents of the store, which other threads may read without locking
+     * while this store keeps changing. Stores that can share unchanged data with their snapshots override this to
+     * avoid copying everything.
+     * @return A read-only store with the current contents of this store.
+     */
+    default TileStore snapshot() {
+        ChunkedTileStore copy = new ChunkedTileStore(getWidth(), getHeight());
+        for (int y = 0; y < getHeight(); y++) {
+            for (int x = 0; x < getWidth(); x++) {
+                copy.set(x, y, get(x, y));
+            }
+        }
+        copy.compact();
+        return copy.snapshot();
+    }
+
+    /**
+     * Releases memory held for regions of the store whose tiles all ended up with the same value. Stores without
+     * chunks have nothing to release.
+     */
+    default void compact() {
+    }
+
+    /**
+     * Visits the chunks overlapping a rectangle of tiles, so that callers can skip uniform chunks without reading
+     * their tiles. Stores without chunks report the whole rectangle as one mixed chunk.
+     * @param x0 The smallest x position of the rectangle, inclusive.
+     * @param y0 The smallest y position of the rectangle, inclusive.
+     * @param x1 The largest x position of the rectangle, inclusive.
+     * @param y1 The largest y position of the rectangle, inclusive.
+     * @param visitor The callback to invoke for every chunk.
+     */
+    default void forEachChunk(int x0, int y0, int x1, int y1, ChunkVisitor visitor) {
+        x0 = Math.max(x0, 0);
+        y0 = Math.max(y0, 0);
+        x1 = Math.min(x1, getWidth() - 1);
+        y1 = Math.min(y1, getHeight() - 1);
+        if (x0 <= x1 && y0 <= y1) {
+            visitor.visit(x0, y0, x1, y1, MIXED);
+        }
+    }
+
+    /**
+     * Returns a read-only map view of the store with Points as keys, containing every non-empty position.
+     * The view is backed by the store, so later changes to the store are visible through it.
+     * @return A read-only map view of the store.
+     */
+    default Map<Point, Integer> asMap() {
+        return new AbstractMap<>() {
+            @Override
+            public Integer get(Object key) {
+                if (!(key instanceof Point point)) {
+                    return null;
+                }
+                int value = TileStore.this.get(point.x, point.y);
+                return value == NONE ? null : value;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Set<Entry<Point, Integer>> entrySet() {
+                return new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<Point, Integer>> iterator() {
+                        return new Iterator<>() {
+                            private final long end = (long) getWidth() * getHeight();
+                            private long index = advance(0);
+
+                            private long advance(long from) {
+                                while (from < end && valueAt(from) == NONE) {
+                                    from++;
+                                }
+                                return from;
+                            }
+
+                            private int valueAt(long index) {
+                                return TileStore.this.get((int) (index % getWidth()), (int) (index / getWidth()));
+                            }
+
+                            @Override
+                            public boolean hasNext() {
+                                return index < end;
+                            }
+
+                            @Override
+                            public Entry<Point, Integer> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                Entry<Point, Integer> entry = new SimpleImmutableEntry<>(
+                                        new Point((int) (index % getWidth()), (int) (index / getWidth())), valueAt(index));
+                                index = advance(index + 1);
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        int count = 0;
+                        for (int y = 0; y < getHeight(); y++) {
+                            for (int x = 0; x < getWidth(); x++) {
+                                if (TileStore.this.get(x, y) != NONE) {
+                                    count++;
+                                }
+                            }
+                        }
+                        return count;
+                    }
+                };
+            }
+        };
+    }
+}
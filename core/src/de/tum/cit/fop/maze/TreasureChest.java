@@ -6,17 +6,23 @@
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
-import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 
 /**
  * A treasure chest that can be opened by the player to receive an item.
  */
 public class TreasureChest extends Entity {
+    /**
+     * The version of the state written by {@link #writeState(DataOutputStream)}.
+     */
+    public static final int STATE_VERSION = 1;
     private TextureRegion currentTexture;
     private Item content;
     private boolean open;
     private float itemDisplayTime = 3;
-    private Point keyLocation;
+    private long keyLocation;
     private float keyDirection;
 
     /**
@@ -65,8 +71,8 @@ public void draw(SpriteBatch batch, float delta) {
      * @return The rotation value for the arrow item.
      */
     private float getKeyDirection() {
-        double deltaX = keyLocation.x - x / GameScreen.tileSize;
-        double deltaY = keyLocation.y - y / GameScreen.tileSize;
+        double deltaX = TileCoord.x(keyLocation) - x / GameScreen.tileSize;
+        double deltaY = TileCoord.y(keyLocation) - y / GameScreen.tileSize;
 
         return (float) Math.toDegrees(Math.atan2(deltaY, deltaX)) + 90;
     }
@@ -85,6 +91,39 @@ public void open() {
         open = true;
     }
 
+    @Override
+    public void writeState(DataOutputStream out) throws IOException {
+        out.writeByte(content.getType().ordinal());
+        out.writeBoolean(open);
+        out.writeFloat(itemDisplayTime);
+        out.writeLong(keyLocation);
+        out.writeFloat(keyDirection);
+    }
+
+    /**
+     * Creates a treasure chest from its state in a save game.
+     * @param in The stream to read from.
+     * @param version The version of the saved state.
+     * @param x The x position of the treasure chest.
+     * @param y The y position of the treasure chest.
+     * @param player The player character to interact with.
+     * @return The restored treasure chest.
+     * @throws IOException If reading fails or the state is invalid.
+     */
+    public static TreasureChest readState(DataInputStream in, int version, int x, int y, Player player)
+            throws IOException {
+        checkVersion(version, STATE_VERSION);
+        TreasureChest chest = new TreasureChest(x, y, player, Item.readType(in));
+        chest.open = in.readBoolean();
+        chest.itemDisplayTime = in.readFloat();
+        chest.keyLocation = in.readLong();
+        chest.keyDirection = in.readFloat();
+        if (chest.open) {
+            chest.currentTexture = chest.textures.get(1);
+        }
+        return chest;
+    }
+
     /**
      * Sets the item contained in the chest.
      * @param item The item to put in the chest.
@@ -95,9 +134,9 @@ public void setContent(Item item) {
 
     /**
      * Sets the location of the chest that contains the key, used by the arrow item.
-     * @param keyLocation The location of the key.
+     * @param keyLocation The packed tile coordinate of the key, see {@link TileCoord}.
      */
-    public void setKeyLocation(Point keyLocation) {
+    public void setKeyLocation(long keyLocation) {
         this.keyLocation = keyLocation;
     }
 }
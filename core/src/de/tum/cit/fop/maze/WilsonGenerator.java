@@ -0,0 +1,75 @@
+package de.tum.cit.fop.maze;
+
+import java.util.Random;
+
+/**
+ * Carves mazes with Wilson's algorithm. Starting from a single cell, random walks are made from every cell not yet
+ * in the maze until they hit the maze, and the walk with all its loops erased is added. This picks every possible
+ * maze with the same probability, so the mazes have no directional bias, at the cost of slow first walks on large
+ * mazes. Loops are erased implicitly by only remembering the last direction a walk left every cell in.
+ */
+public class WilsonGenerator implements MazeGenerator {
+    @Override
+    public void carve(int[][] maze, int minX, int minY, int maxX, int maxY, Random random) {
+        int width = (maxX - minX) / 2 + 1;
+        int height = (maxY - minY) / 2 + 1;
+        int cells = width * height;
+        boolean[] inMaze = new boolean[cells];
+        byte[] exits = new byte[cells];
+
+        int root = random.nextInt(cells);
+        inMaze[root] = true;
+        maze[minY + root / width * 2][minX + root % width * 2] = PATH;
+
+        for (int start = 0; start < cells; start++) {
+            int cell = start;
+            while (!inMaze[cell]) {
+                int dir;
+                int next;
+                do {
+                    dir = random.nextInt(4);
+                    next = neighbour(cell, dir, width, height);
+                } while (next < 0);
+                exits[cell] = (byte) dir;
+                cell = next;
+            }
+
+            cell = start;
+            while (!inMaze[cell]) {
+                inMaze[cell] = true;
+                int x = minX + cell % width * 2;
+                int y = minY + cell / width * 2;
+                maze[y][x] = PATH;
+                switch (exits[cell]) {
+                    case 0 -> maze[y][x - 1] = PATH;
+                    case 1 -> maze[y][x + 1] = PATH;
+                    case 2 -> maze[y - 1][x] = PATH;
+                    default -> maze[y + 1][x] = PATH;
+                }
+                cell = neighbour(cell, exits[cell], width, height);
+            }
+        }
+    }
+
+    /**
+     * Returns the neighbour of a cell in a given direction.
+     * @param cell The index of the cell.
+     * @param dir The direction: 0 left, 1 right, 2 up or 3 down.
+     * @param width The number of cell columns.
+     * @param height The number of cell rows.
+     * @return The index of the neighbour, or -1 if there is no cell in that direction.
+     */
+    private static int neighbour(int cell, int dir, int width, int height) {
+        return switch (dir) {
+            case 0 -> cell % width > 0 ? cell - 1 : -1;
+            case 1 -> cell % width < width - 1 ? cell + 1 : -1;
+            case 2 -> cell >= width ? cell - width : -1;
+            default -> cell < (height - 1) * width ? cell + width : -1;
+        };
+    }
+
+    @Override
+    public String getName() {
+        return "Wilson";
+    }
+}